@@ -0,0 +1,105 @@
+package com.example.transfer.entity;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// Random v4 ids in a varchar(36) key (the previous scheme) against UUIDv7 in a native uuid key.
+// Tables keep growing across iterations, so later iterations show how each key ages as the index
+// gets large. Defaults to in-memory H2; for numbers that reflect production, point it at PostgreSQL
+// (environment variables, since JMH runs benchmarks in forked JVMs):
+//   BENCH_JDBC_URL=jdbc:postgresql://localhost:5432/bench BENCH_JDBC_USER=... BENCH_JDBC_PASSWORD=... ./gradlew jmh
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class TransferIdBenchmark {
+
+    private static final int BATCH = 100;
+
+    private Connection connection;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection(
+                env("BENCH_JDBC_URL", "jdbc:h2:mem:idbench;DB_CLOSE_DELAY=-1"),
+                env("BENCH_JDBC_USER", "sa"),
+                env("BENCH_JDBC_PASSWORD", ""));
+        connection.setAutoCommit(false);
+        try (Statement st = connection.createStatement()) {
+            st.execute("drop table if exists bench_ids_v4_text");
+            st.execute("drop table if exists bench_ids_v7_uuid");
+            st.execute("create table bench_ids_v4_text (id varchar(36) primary key, amount numeric(19, 2) not null)");
+            st.execute("create table bench_ids_v7_uuid (id uuid primary key, amount numeric(19, 2) not null)");
+        }
+        connection.commit();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public UUID generateRandomV4() {
+        return UUID.randomUUID();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public UUID generateV7() {
+        return UuidV7.next();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public int[] insertRandomV4Text() throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(
+                "insert into bench_ids_v4_text (id, amount) values (?, 10.00)")) {
+            for (int i = 0; i < BATCH; i++) {
+                ps.setString(1, UUID.randomUUID().toString());
+                ps.addBatch();
+            }
+            int[] counts = ps.executeBatch();
+            connection.commit();
+            return counts;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public int[] insertV7Uuid() throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(
+                "insert into bench_ids_v7_uuid (id, amount) values (?, 10.00)")) {
+            for (int i = 0; i < BATCH; i++) {
+                ps.setObject(1, UuidV7.next());
+                ps.addBatch();
+            }
+            int[] counts = ps.executeBatch();
+            connection.commit();
+            return counts;
+        }
+    }
+
+    private static String env(String name, String fallback) {
+        String value = System.getenv(name);
+        return value == null ? fallback : value;
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.transfer.service;
+
+import com.example.transfer.dto.BatchTransferRequestDto;
+import com.example.transfer.dto.BatchTransferResponseDto;
+import com.example.transfer.dto.TransferRequestDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+// One op = concurrentBatches batches of batchSize items submitted at once.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class BatchTransferBenchmark {
+
+    @Param({"1", "5", "20"})
+    public int batchSize;
+
+    @Param({"1", "4", "16"})
+    public int concurrentBatches;
+
+    private static final TransferRequestDto TRANSFER = new TransferRequestDto(1L, 2L, new BigDecimal("10.00"));
+
+    @Benchmark
+    public void processBatch(TransferBenchmarkContext ctx, Blackhole bh) throws Exception {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<BatchTransferResponseDto>> futures = new ArrayList<>(concurrentBatches);
+            for (int b = 0; b < concurrentBatches; b++) {
+                BatchTransferRequestDto batch = batch(ctx);
+                futures.add(executor.submit(() -> ctx.batchTransferService.processBatch(batch)));
+            }
+            for (Future<BatchTransferResponseDto> f : futures) {
+                bh.consume(f.get());
+            }
+        }
+    }
+
+    private BatchTransferRequestDto batch(TransferBenchmarkContext ctx) {
+        List<BatchTransferRequestDto.Item> items = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            items.add(new BatchTransferRequestDto.Item(ctx.nextKey(), TRANSFER));
+        }
+        return new BatchTransferRequestDto(items);
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.transfer.service;
+
+import com.example.transfer.dto.TransferRequestDto;
+import com.example.transfer.dto.TransferResponseDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Platform request threads against virtual threads for blocking createTransfer calls, the way
+// Tomcat runs them: `platform` is a fixed pool the size of Tomcat's default max-threads, `virtual`
+// a thread per request. The ledger answers after a simulated round trip, so with more concurrent
+// requests than platform threads the pool caps throughput and virtual threads should not.
+// One op = `requests` concurrent transfers. Compare memory with the gc profiler
+// (gc.alloc.rate.norm; virtual thread stacks live on the heap) and peak RSS of the forked JVM.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ExecutionModelBenchmark {
+
+    private static final int TOMCAT_MAX_THREADS = 200;
+
+    @Param({"platform", "virtual"})
+    public String threads;
+
+    @Param({"200", "1000"})
+    public int requests;
+
+    private ExecutorService executor;
+
+    // Ledger takes 20 ms; the ledger and lane limits are lifted so only the thread model limits concurrency.
+    @State(Scope.Benchmark)
+    public static class SlowLedgerContext extends TransferBenchmarkContext {
+        @Override
+        protected long ledgerDelayMs() {
+            return 20;
+        }
+
+        @Override
+        protected String[] extraProperties() {
+            return new String[]{
+                    "app.ledger.limiter.enabled=false",
+                    "app.transfer.lanes.enabled=false",
+                    "spring.datasource.hikari.maximum-pool-size=50"
+            };
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void startExecutor() {
+        executor = "virtual".equals(threads)
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(TOMCAT_MAX_THREADS);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopExecutor() {
+        executor.close();
+    }
+
+    @Benchmark
+    public void createTransfers(SlowLedgerContext ctx, Blackhole bh) throws Exception {
+        List<Future<TransferResponseDto>> futures = new ArrayList<>(requests);
+        for (int i = 0; i < requests; i++) {
+            String key = ctx.nextKey();
+            // distinct debit accounts, as with unrelated clients
+            TransferRequestDto request = new TransferRequestDto(
+                    ThreadLocalRandom.current().nextLong(1, 1_000_000), 2L, new BigDecimal("10.00"));
+            futures.add(executor.submit(() -> ctx.transferService.createTransfer(request, key)));
+        }
+        for (Future<TransferResponseDto> f : futures) {
+            bh.consume(f.get());
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.transfer.service;
+
+import com.example.transfer.TransferApplication;
+import com.example.transfer.dto.LedgerTransferRequest;
+import com.example.transfer.dto.LedgerTransferResponse;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Full application context on in-memory H2 with the ledger stubbed out, shared by a benchmark trial.
+@State(Scope.Benchmark)
+public class TransferBenchmarkContext {
+
+    private static final LedgerTransferResponse OK = new LedgerTransferResponse("SUCCESS", "OK");
+
+    private final AtomicLong keys = new AtomicLong();
+
+    ConfigurableApplicationContext context;
+    TransferService transferService;
+    BatchTransferService batchTransferService;
+
+    @Setup
+    public void start() {
+        context = new SpringApplicationBuilder(TransferApplication.class, StubLedgerConfig.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:jmh;DB_CLOSE_DELAY=-1",
+                        "logging.level.com.example.transfer=WARN",
+                        "app.transfer.concurrency.max-in-flight=64",
+                        "app.transfer.concurrency.max-queue=10000",
+                        "app.transfer.concurrency.per-batch=20",
+                        "bench.ledger.delay-ms=" + ledgerDelayMs())
+                .properties(extraProperties())
+                .run();
+        transferService = context.getBean(TransferService.class);
+        batchTransferService = context.getBean(BatchTransferService.class);
+    }
+
+    @TearDown
+    public void stop() {
+        context.close();
+    }
+
+    // Simulated ledger round trip; 0 answers immediately.
+    protected long ledgerDelayMs() {
+        return 0;
+    }
+
+    protected String[] extraProperties() {
+        return new String[0];
+    }
+
+    String nextKey() {
+        return "bench-" + keys.incrementAndGet();
+    }
+
+    @Configuration
+    static class StubLedgerConfig {
+        @Bean
+        @Primary
+        LedgerClient stubLedgerClient(@Value("${bench.ledger.delay-ms:0}") long delayMs) {
+            Mono<LedgerTransferResponse> response = delayMs > 0
+                    ? Mono.delay(Duration.ofMillis(delayMs)).thenReturn(OK)
+                    : Mono.just(OK);
+            return new LedgerClient(WebClient.create()) {
+                @Override
+                public Mono<LedgerTransferResponse> postTransfer(LedgerTransferRequest request) {
+                    return response;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.transfer.service;
+
+import com.example.transfer.config.JacksonConfig;
+import com.example.transfer.dto.TransferRequestDto;
+import com.example.transfer.dto.TransferResponseDto;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TransferHotPathBenchmark {
+
+    private final TransferRequestDto request = new TransferRequestDto(1234567L, 7654321L, new BigDecimal("1050.25"));
+    private final ObjectMapper objectMapper = new JacksonConfig().objectMapper();
+    private final TransferResponseDto response = new TransferResponseDto(UUID.randomUUID().toString(), "COMPLETED");
+    private final String responseJson = write(response);
+
+    @Benchmark
+    public String hashRequest() {
+        return TransferService.hashRequest(request);
+    }
+
+    // Previous text-based hash, kept for comparison with the binary v2 encoding.
+    @Benchmark
+    public String hashRequestLegacy() {
+        return RequestHasher.legacyHash(request);
+    }
+
+    @Benchmark
+    public String serializeIdempotencyResponse() throws JsonProcessingException {
+        return objectMapper.writeValueAsString(response);
+    }
+
+    @Benchmark
+    public TransferResponseDto deserializeIdempotencyResponse() throws JsonProcessingException {
+        return objectMapper.readValue(responseJson, TransferResponseDto.class);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public TransferResponseDto createTransfer(TransferBenchmarkContext ctx) {
+        return ctx.transferService.createTransfer(request, ctx.nextKey());
+    }
+
+    private String write(TransferResponseDto dto) {
+        try {
+            return objectMapper.writeValueAsString(dto);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.transfer.config;
+
+import com.example.transfer.service.TransferConcurrencyLimiter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public MeterBinder batchQueueDepth(TransferConcurrencyLimiter limiter) {
+        return registry -> Gauge.builder("transfer.batch.queue.depth", limiter, TransferConcurrencyLimiter::queueDepth)
+                .description("Batch and stream items waiting for a transfer permit")
+                .register(registry);
+    }
+}
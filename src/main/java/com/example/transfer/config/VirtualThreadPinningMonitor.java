@@ -0,0 +1,94 @@
+package com.example.transfer.config;
+
+import com.example.transfer.logging.StructuredEvent;
+import com.example.transfer.logging.StructuredEvents;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.event.Level;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+// In virtual-thread mode, reports virtual threads that stay pinned to their carrier longer than
+// threshold-ms: blocking inside synchronized (H2, older JDBC drivers, some libraries) or in native
+// code. Pinned threads hold a carrier, so a few of them stall every other request. Events come from
+// JFR's jdk.VirtualThreadPinned; each is counted and logged with the first non-JDK frame.
+@Component
+public class VirtualThreadPinningMonitor {
+
+    private static final String PINNED = "jdk.VirtualThreadPinned";
+
+    private final boolean enabled;
+    private final Duration threshold;
+    private final Counter pinned;
+    private final StructuredEvent pinnedThread;
+
+    private RecordingStream stream;
+
+    public VirtualThreadPinningMonitor(MeterRegistry registry,
+                                       StructuredEvents events,
+                                       @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+                                       @Value("${app.threads.pinning.enabled:true}") boolean enabled,
+                                       @Value("${app.threads.pinning.threshold-ms:20}") long thresholdMs) {
+        this.enabled = virtualThreads && enabled;
+        this.threshold = Duration.ofMillis(thresholdMs);
+        this.pinned = Counter.builder("jvm.threads.virtual.pinned")
+                .description("Virtual threads pinned to their carrier for longer than the threshold")
+                .register(registry);
+        this.pinnedThread = events.event(VirtualThreadPinningMonitor.class, "virtual_thread_pinned", Level.WARN);
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        stream = new RecordingStream();
+        stream.enable(PINNED).withThreshold(threshold).withStackTrace();
+        stream.onEvent(PINNED, this::report);
+        stream.startAsync();
+    }
+
+    private void report(RecordedEvent event) {
+        pinned.increment();
+        if (pinnedThread.enabled()) {
+            pinnedThread.begin()
+                    .field("durationMs", event.getDuration().toMillis())
+                    .field("thread", event.getThread() != null ? event.getThread().getJavaName() : "unknown")
+                    .field("site", site(event.getStackTrace()))
+                    .log();
+        }
+    }
+
+    private static String site(RecordedStackTrace stackTrace) {
+        if (stackTrace == null) {
+            return "unknown";
+        }
+        for (RecordedFrame frame : stackTrace.getFrames()) {
+            String type = frame.getMethod().getType().getName();
+            if (!type.startsWith("java.") && !type.startsWith("jdk.") && !type.startsWith("sun.")) {
+                return type + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+            }
+        }
+        return "jdk";
+    }
+
+    @PreDestroy
+    void stop() {
+        if (stream != null) {
+            stream.close();
+            stream = null;
+        }
+    }
+
+    boolean streaming() {
+        return stream != null;
+    }
+}
@@ -6,22 +6,69 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.Http2AllocationStrategy;
+import reactor.netty.http.HttpProtocol;
 import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
 
 import java.time.Duration;
+import java.util.function.Function;
 
 @Configuration
 public class WebClientConfig {
 
+    // Dedicated pool for the ledger, so its size, queueing and idle handling are ours to tune and
+    // show up as reactor.netty.connection.provider.* metrics under the "ledger" name.
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider ledgerConnectionProvider(
+            @Value("${app.ledger.pool.max-connections:100}") int maxConnections,
+            @Value("${app.ledger.pool.pending-acquire-max-count:500}") int pendingAcquireMaxCount,
+            @Value("${app.ledger.pool.pending-acquire-timeout-ms:2000}") long pendingAcquireTimeoutMs,
+            @Value("${app.ledger.pool.max-idle-time-ms:30000}") long maxIdleTimeMs,
+            @Value("${app.ledger.pool.max-life-time-ms:300000}") long maxLifeTimeMs,
+            @Value("${app.ledger.pool.evict-in-background-ms:30000}") long evictInBackgroundMs,
+            @Value("${app.ledger.http2.enabled:false}") boolean http2,
+            @Value("${app.ledger.http2.max-concurrent-streams:100}") long maxConcurrentStreams) {
+
+        ConnectionProvider.Builder builder = ConnectionProvider.builder("ledger")
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(pendingAcquireMaxCount)
+                .pendingAcquireTimeout(Duration.ofMillis(pendingAcquireTimeoutMs))
+                .maxIdleTime(Duration.ofMillis(maxIdleTimeMs))
+                .maxLifeTime(Duration.ofMillis(maxLifeTimeMs))
+                .evictInBackground(Duration.ofMillis(evictInBackgroundMs))
+                .metrics(true);
+        if (http2) {
+            // streams are multiplexed, so far fewer connections carry the same load
+            builder.allocationStrategy(Http2AllocationStrategy.builder()
+                    .maxConnections(maxConnections)
+                    .maxConcurrentStreams(maxConcurrentStreams)
+                    .build());
+        }
+        return builder.build();
+    }
+
     @Bean
     public WebClient ledgerWebClient(
+            ConnectionProvider ledgerConnectionProvider,
             @Value("${app.ledger.base-url}") String baseUrl,
             @Value("${app.ledger.connect-timeout-ms}") int connectTimeoutMs,
-            @Value("${app.ledger.read-timeout-ms}") long readTimeoutMs) {
+            @Value("${app.ledger.read-timeout-ms}") long readTimeoutMs,
+            @Value("${app.ledger.compression:true}") boolean compression,
+            @Value("${app.ledger.http2.enabled:false}") boolean http2) {
 
-        HttpClient httpClient = HttpClient.create()
+        HttpClient httpClient = HttpClient.create(ledgerConnectionProvider)
                 .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMs)
-                .responseTimeout(Duration.ofMillis(readTimeoutMs));
+                .responseTimeout(Duration.ofMillis(readTimeoutMs))
+                .compress(compression)
+                // paths are fixed (v1/ledger/...), so the uri tag stays low-cardinality
+                .metrics(true, Function.identity());
+        if (http2) {
+            // h2 via ALPN over TLS, h2c prior knowledge over plain http; HTTP/1.1 stays as fallback on TLS
+            httpClient = baseUrl.startsWith("https")
+                    ? httpClient.protocol(HttpProtocol.H2, HttpProtocol.HTTP11).secure()
+                    : httpClient.protocol(HttpProtocol.H2C);
+        }
 
         return WebClient.builder()
                 .clientConnector(new ReactorClientHttpConnector(httpClient))
@@ -0,0 +1,48 @@
+package com.example.transfer.controller;
+
+import com.example.transfer.dto.AccountTransferPageDto;
+import com.example.transfer.entity.Transfer;
+import com.example.transfer.service.AccountHistoryService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.Instant;
+
+@RestController
+@RequestMapping(path = "/v1/accounts/{accountId}/transfers")
+@RequiredArgsConstructor
+public class AccountTransferController {
+
+    private final AccountHistoryService accountHistoryService;
+
+    // from is inclusive, to is exclusive; pass nextCursor back as cursor for the following page.
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public AccountTransferPageDto list(@PathVariable Long accountId,
+                                       @RequestParam(required = false) Transfer.Status status,
+                                       @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+                                       @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+                                       @RequestParam(required = false) String cursor,
+                                       @RequestParam(defaultValue = "50") int limit) {
+        return accountHistoryService.page(accountId, new AccountHistoryService.Filter(status, from, to), cursor, limit);
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> export(@PathVariable Long accountId,
+                                                        @RequestParam(required = false) Transfer.Status status,
+                                                        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+                                                        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to) {
+        AccountHistoryService.Filter filter = new AccountHistoryService.Filter(status, from, to);
+        StreamingResponseBody response = out -> accountHistoryService.export(accountId, filter, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(response);
+    }
+}
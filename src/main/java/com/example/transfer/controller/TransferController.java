@@ -2,13 +2,18 @@ package com.example.transfer.controller;
 
 import com.example.transfer.dto.BatchTransferRequestDto;
 import com.example.transfer.dto.BatchTransferResponseDto;
+import com.example.transfer.dto.TransferLookupRequestDto;
 import com.example.transfer.dto.TransferRequestDto;
 import com.example.transfer.dto.TransferResponseDto;
+import com.example.transfer.entity.Transfer;
 import com.example.transfer.service.BatchTransferService;
+import com.example.transfer.service.StreamingTransferService;
+import com.example.transfer.service.TransferLookupService;
 import com.example.transfer.service.TransferService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -16,6 +21,11 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.InputStream;
+import java.net.URI;
 
 @RestController
 @RequestMapping(produces = MediaType.APPLICATION_JSON_VALUE)
@@ -26,20 +36,53 @@ public class TransferController {
 
     private final TransferService transferService;
     private final BatchTransferService batchTransferService;
+    private final StreamingTransferService streamingTransferService;
+    private final TransferLookupService transferLookupService;
 
+    // 202 with a Location to poll while the transfer is still PENDING (always the case in async mode).
     @PostMapping(path = "/v1/transfers", consumes = MediaType.APPLICATION_JSON_VALUE)
-    public TransferResponseDto create(@RequestHeader(IDEMPOTENCY_KEY) String idemKey,
-                                      @Valid @RequestBody TransferRequestDto body) {
-        return transferService.createTransfer(body, idemKey);
+    public ResponseEntity<TransferResponseDto> create(@RequestHeader(IDEMPOTENCY_KEY) String idemKey,
+                                                      @Valid @RequestBody TransferRequestDto body) {
+        TransferResponseDto response = transferService.createTransfer(body, idemKey);
+        if (Transfer.Status.PENDING.name().equals(response.status())) {
+            return ResponseEntity.accepted()
+                    .location(URI.create("/v1/transfers/" + response.transferId()))
+                    .body(response);
+        }
+        return ResponseEntity.ok(response);
     }
 
+    // The ETag is the status, so pollers get a bodyless 304 until the transfer moves on.
     @GetMapping(path = "/v1/transfers/{id}")
-    public TransferResponseDto get(@PathVariable String id) {
-        return transferService.getTransfer(id);
+    public TransferResponseDto get(@PathVariable String id, WebRequest request) {
+        TransferResponseDto response = transferService.getTransfer(id);
+        if (request.checkNotModified("\"" + response.status() + "\"")) {
+            return null;
+        }
+        return response;
+    }
+
+    @PostMapping(path = "/v1/transfers/lookup", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> lookup(@Valid @RequestBody TransferLookupRequestDto body) {
+        StreamingResponseBody response = out -> transferLookupService.write(body.transferIds(), out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(response);
     }
 
     @PostMapping(path = "/v1/transfers/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
     public BatchTransferResponseDto batch(@Valid @RequestBody BatchTransferRequestDto body) {
         return batchTransferService.processBatch(body);
     }
+
+    @PostMapping(path = "/v1/transfers/stream",
+            consumes = MediaType.APPLICATION_NDJSON_VALUE,
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> stream(InputStream body) {
+        streamingTransferService.admit();
+        StreamingResponseBody response = out -> streamingTransferService.process(body, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(response);
+    }
 }
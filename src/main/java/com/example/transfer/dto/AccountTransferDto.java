@@ -0,0 +1,13 @@
+package com.example.transfer.dto;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+public record AccountTransferDto(
+        String transferId,
+        Long fromAccountId,
+        Long toAccountId,
+        BigDecimal amount,
+        String status,
+        Instant createdAt
+) {}
@@ -0,0 +1,9 @@
+package com.example.transfer.dto;
+
+import java.util.List;
+
+// nextCursor is null on the last page.
+public record AccountTransferPageDto(
+        List<AccountTransferDto> transfers,
+        String nextCursor
+) {}
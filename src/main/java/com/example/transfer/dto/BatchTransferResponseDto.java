@@ -1,5 +1,7 @@
 package com.example.transfer.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import java.util.List;
 
 public record BatchTransferResponseDto(
@@ -7,6 +9,16 @@ public record BatchTransferResponseDto(
 ) {
     public record Result(
             String idempotencyKey,
-            TransferResponseDto response
-    ) {}
+            TransferResponseDto response,
+            // HTTP status an item was refused with (429/503: retry later, 409, 413, 422); absent otherwise
+            @JsonInclude(JsonInclude.Include.NON_NULL) Integer errorStatus
+    ) {
+        public Result(String idempotencyKey, TransferResponseDto response) {
+            this(idempotencyKey, response, null);
+        }
+
+        public static Result refused(String idempotencyKey, int errorStatus) {
+            return new Result(idempotencyKey, new TransferResponseDto(null, "REJECTED"), errorStatus);
+        }
+    }
 }
@@ -0,0 +1,7 @@
+package com.example.transfer.dto;
+
+import java.util.List;
+
+public record LedgerBatchTransferRequest(
+        List<LedgerTransferRequest> transfers
+) {}
@@ -0,0 +1,15 @@
+package com.example.transfer.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public record LedgerBatchTransferResponse(
+        List<Result> results
+) {
+    public record Result(
+            String transferId,
+            String status,
+            String message,
+            BigDecimal availableBalance
+    ) {}
+}
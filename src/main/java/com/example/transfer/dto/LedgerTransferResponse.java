@@ -1,6 +1,14 @@
 package com.example.transfer.dto;
 
+import java.math.BigDecimal;
+
+// availableBalance is the debit account's balance after the posting, when the ledger reports it
 public record LedgerTransferResponse(
         String status,
-        String message
-) {}
+        String message,
+        BigDecimal availableBalance
+) {
+    public LedgerTransferResponse(String status, String message) {
+        this(status, message, null);
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.transfer.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+
+public record TransferLookupRequestDto(
+        @NotEmpty @Size(max = 1000) List<@NotBlank String> transferIds
+) {}
@@ -9,11 +9,20 @@ import java.time.Instant;
 @Entity
 @Table(name = "idempotency_keys", uniqueConstraints = {
         @UniqueConstraint(name = "uk_idem_key", columnNames = "idem_key")
+}, indexes = {
+        @Index(name = "idx_idem_created_at", columnList = "created_at"),
+        // finalize and release address the marker by transfer_id
+        @Index(name = "idx_idem_transfer_id", columnList = "transfer_id")
 })
 @Getter
 @Setter
 public class IdempotencyKey {
 
+    // response_version says how to rebuild the stored response:
+    //   1  TransferResponseDto from transfer_id + response_status
+    // Future endpoints pick a new version and keep their encoded body in response_body.
+    public static final byte RESPONSE_TRANSFER_V1 = 1;
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -27,10 +36,24 @@ public class IdempotencyKey {
     @Column(name = "transfer_id", length = 40)
     private String transferId;
 
+    @Column(name = "response_version")
+    private Byte responseVersion;
+
+    @Column(name = "response_status", length = 16)
+    private String responseStatus;
+
+    @Column(name = "response_body", length = 4096)
+    private byte[] responseBody;
+
+    // Written before response_version existed; read only, until those rows expire.
     @Lob
     @Column(name = "response_json")
     private String responseJson;
 
-    @Column(nullable = false)
+    @Column(name = "created_at", nullable = false)
     private Instant createdAt = Instant.now();
+
+    public boolean hasResponse() {
+        return responseVersion != null || responseJson != null;
+    }
 }
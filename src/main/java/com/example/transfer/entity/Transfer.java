@@ -5,34 +5,41 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 import lombok.Getter;
 import lombok.Setter;
 
 import java.math.BigDecimal;
 import java.time.Instant;
+import java.util.Optional;
 import java.util.UUID;
 
 @Entity
-@Table(name = "transfers")
+@Table(name = "transfers", indexes = {
+        @Index(name = "idx_transfers_status_created_at", columnList = "status, created_at"),
+        @Index(name = "idx_transfers_from_created_at", columnList = "from_account_id, created_at, id"),
+        @Index(name = "idx_transfers_to_created_at", columnList = "to_account_id, created_at, id")
+})
 @Getter
 @Setter
 public class Transfer {
 
+    // Native uuid column; the API still exposes the canonical string form.
     @Id
     @Column(name = "id", nullable = false, updatable = false)
-    private String id = UUID.randomUUID().toString();
+    private UUID id = newId();
 
-    @Column(nullable = false)
+    @Column(name = "from_account_id", nullable = false)
     private Long fromAccountId;
 
-    @Column(nullable = false)
+    @Column(name = "to_account_id", nullable = false)
     private Long toAccountId;
 
     @Column(nullable = false, precision = 19, scale = 2)
     private BigDecimal amount;
 
-    @Column(nullable = false)
+    @Column(name = "created_at", nullable = false)
     private Instant createdAt = Instant.now();
 
     @Enumerated(EnumType.STRING)
@@ -41,8 +48,24 @@ public class Transfer {
     @Column
     private String message;
 
+    public static UUID newId() {
+        return UuidV7.next();
+    }
+
+    // Ids arrive as strings from clients; anything that is not a UUID cannot name a transfer.
+    public static Optional<UUID> parseId(String id) {
+        if (id == null || id.length() != 36) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(UUID.fromString(id));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
     public enum Status {
-        COMPLETED, FAILED
+        PENDING, COMPLETED, FAILED
     }
 }
 
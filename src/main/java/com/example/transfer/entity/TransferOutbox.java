@@ -0,0 +1,37 @@
+package com.example.transfer.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+import java.util.UUID;
+
+// One row per transfer accepted in async mode that still has to reach the ledger. Written in the
+// same transaction as the PENDING transfer and deleted once the transfer is finalized.
+@Entity
+@Table(name = "transfer_outbox", indexes = {
+        @Index(name = "idx_outbox_next_attempt_at", columnList = "next_attempt_at")
+})
+@Getter
+@Setter
+public class TransferOutbox {
+
+    @Id
+    @Column(name = "transfer_id", nullable = false, updatable = false)
+    private UUID transferId;
+
+    // bumped on every claim; a claim only succeeds against the value it read
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private Instant nextAttemptAt;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt = Instant.now();
+}
@@ -0,0 +1,6 @@
+package com.example.transfer.exception;
+
+// A 503 raised before any request for the transfer reached the ledger, so nothing has to be undone there.
+public class LedgerNotCalledException extends ServiceUnavailableException {
+    public LedgerNotCalledException(String reason) { super(reason); }
+}
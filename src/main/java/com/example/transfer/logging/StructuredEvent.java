@@ -0,0 +1,159 @@
+package com.example.transfer.logging;
+
+import org.slf4j.Logger;
+import org.slf4j.event.Level;
+
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// One structured log event type with a fixed schema. Callers check enabled() first so a gated or
+// sampled-out event costs a level check and a counter increment; enabled events are written as
+// JSON straight into a pooled buffer, with no maps, boxing or intermediate strings.
+//
+//     if (event.enabled()) {
+//         event.begin().field("transferId", id).field("amount", amount).log();
+//     }
+public final class StructuredEvent {
+
+    private static final int POOL_SIZE = 64;
+    private static final int MAX_RETAINED_CAPACITY = 4096;
+    private static final AtomicReferenceArray<Writer> POOL = new AtomicReferenceArray<>(POOL_SIZE);
+
+    private final Logger logger;
+    private final String prefix;
+    private final Level level;
+    private final long sampleEvery;
+    private final AtomicLong seen = new AtomicLong();
+
+    StructuredEvent(Logger logger, String name, Level level, long sampleEvery) {
+        this.logger = logger;
+        this.prefix = "{\"event\":\"" + name + "\"";
+        this.level = level;
+        this.sampleEvery = Math.max(1, sampleEvery);
+    }
+
+    public boolean enabled() {
+        if (!logger.isEnabledForLevel(level)) {
+            return false;
+        }
+        return sampleEvery == 1 || seen.getAndIncrement() % sampleEvery == 0;
+    }
+
+    public Writer begin() {
+        Writer writer = acquire();
+        writer.start(this);
+        return writer;
+    }
+
+    private void emit(String line) {
+        switch (level) {
+            case ERROR -> logger.error(line);
+            case WARN -> logger.warn(line);
+            case INFO -> logger.info(line);
+            case DEBUG -> logger.debug(line);
+            case TRACE -> logger.trace(line);
+        }
+    }
+
+    private static Writer acquire() {
+        for (int i = 0; i < POOL_SIZE; i++) {
+            Writer w = POOL.getAndSet(i, null);
+            if (w != null) {
+                return w;
+            }
+        }
+        return new Writer();
+    }
+
+    private static void release(Writer w) {
+        if (w.buf.capacity() > MAX_RETAINED_CAPACITY) {
+            return;
+        }
+        for (int i = 0; i < POOL_SIZE; i++) {
+            if (POOL.compareAndSet(i, null, w)) {
+                return;
+            }
+        }
+    }
+
+    public static final class Writer {
+        private final StringBuilder buf = new StringBuilder(256);
+        private StructuredEvent event;
+
+        private void start(StructuredEvent event) {
+            this.event = event;
+            buf.setLength(0);
+            buf.append(event.prefix);
+        }
+
+        public Writer field(String name, String value) {
+            name(name);
+            if (value == null) {
+                buf.append("null");
+            } else {
+                buf.append('"');
+                escape(value);
+                buf.append('"');
+            }
+            return this;
+        }
+
+        public Writer field(String name, long value) {
+            name(name);
+            buf.append(value);
+            return this;
+        }
+
+        public Writer field(String name, Long value) {
+            return value == null ? field(name, (String) null) : field(name, value.longValue());
+        }
+
+        public Writer field(String name, BigDecimal value) {
+            name(name);
+            if (value == null) {
+                buf.append("null");
+            } else {
+                buf.append(value.toPlainString());
+            }
+            return this;
+        }
+
+        public Writer field(String name, Enum<?> value) {
+            return field(name, value == null ? null : value.name());
+        }
+
+        public void log() {
+            buf.append('}');
+            StructuredEvent owner = event;
+            String line = buf.toString();
+            event = null;
+            release(this);
+            owner.emit(line);
+        }
+
+        private void name(String name) {
+            buf.append(",\"").append(name).append("\":");
+        }
+
+        private void escape(String s) {
+            for (int i = 0; i < s.length(); i++) {
+                char c = s.charAt(i);
+                switch (c) {
+                    case '"' -> buf.append("\\\"");
+                    case '\\' -> buf.append("\\\\");
+                    case '\n' -> buf.append("\\n");
+                    case '\r' -> buf.append("\\r");
+                    case '\t' -> buf.append("\\t");
+                    default -> {
+                        if (c < 0x20) {
+                            buf.append(String.format("\\u%04x", (int) c));
+                        } else {
+                            buf.append(c);
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.transfer.logging;
+
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+// Builds StructuredEvents with per-event overrides from configuration:
+//   app.logging.events.<event>.level         ERROR | WARN | INFO | DEBUG | TRACE
+//   app.logging.events.<event>.sample-every  log one in N events (default 1)
+@Component
+public class StructuredEvents {
+
+    private final Environment environment;
+
+    public StructuredEvents(Environment environment) {
+        this.environment = environment;
+    }
+
+    public StructuredEvent event(Class<?> owner, String name, Level defaultLevel) {
+        String prefix = "app.logging.events." + name + ".";
+        Level level = Level.valueOf(environment.getProperty(prefix + "level", defaultLevel.name()).toUpperCase());
+        long sampleEvery = environment.getProperty(prefix + "sample-every", Long.class, 1L);
+        return new StructuredEvent(LoggerFactory.getLogger(owner), name, level, sampleEvery);
+    }
+}
@@ -1,11 +1,30 @@
 package com.example.transfer.repository;
 
 import com.example.transfer.entity.IdempotencyKey;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, Long> {
     Optional<IdempotencyKey> findByKey(String key);
-    void deleteByCreatedAtBefore(java.time.Instant cutoff);
+
+    @Query("select k.id from IdempotencyKey k where k.createdAt < :cutoff order by k.createdAt")
+    List<Long> findExpiredIds(@Param("cutoff") Instant cutoff, Limit limit);
+
+    @Query("select min(k.createdAt) from IdempotencyKey k")
+    Optional<Instant> findOldestCreatedAt();
+
+    @Query("select k.key from IdempotencyKey k where k.key in :keys")
+    List<String> findExistingKeys(@Param("keys") Collection<String> keys);
+
+    @Modifying
+    @Query("delete from IdempotencyKey k where k.id in :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,17 @@
+package com.example.transfer.repository;
+
+import com.example.transfer.entity.Transfer;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+// A row of an account's transfer history, without message or other unused columns.
+public record TransferHistoryView(
+        UUID id,
+        Long fromAccountId,
+        Long toAccountId,
+        BigDecimal amount,
+        Transfer.Status status,
+        Instant createdAt
+) {}
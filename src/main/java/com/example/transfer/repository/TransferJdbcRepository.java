@@ -0,0 +1,144 @@
+package com.example.transfer.repository;
+
+import com.example.transfer.entity.IdempotencyKey;
+import com.example.transfer.entity.Transfer;
+import com.example.transfer.entity.TransferOutbox;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+// Plain JDBC for the transfer write path: no persistence context, no dirty checking, and
+// reservations for a whole batch go out as one JDBC batch per table
+// (a single multi-row insert on PostgreSQL with reWriteBatchedInserts).
+// Reads stay on the JPA repositories.
+@Repository
+@RequiredArgsConstructor
+public class TransferJdbcRepository {
+
+    public record PendingTransfer(
+            String idempotencyKey,
+            String requestHash,
+            String transferId,
+            Long fromAccountId,
+            Long toAccountId,
+            BigDecimal amount,
+            Instant createdAt
+    ) {}
+
+    private static final String INSERT_IDEMPOTENCY_KEY =
+            "insert into idempotency_keys (idem_key, request_hash, transfer_id, created_at) values (?, ?, ?, ?)";
+    private static final String INSERT_TRANSFER =
+            "insert into transfers (id, from_account_id, to_account_id, amount, created_at, status) values (?, ?, ?, ?, ?, ?)";
+    private static final String FINALIZE_TRANSFER =
+            "update transfers set status = ?, message = ? where id = ? and status = ?";
+    private static final String COMPLETE_IDEMPOTENCY_KEY =
+            "update idempotency_keys set response_version = ?, response_status = ? where transfer_id = ? and response_version is null";
+    private static final String DELETE_PENDING_TRANSFER =
+            "delete from transfers where id = ? and status = ?";
+    private static final String DELETE_OPEN_IDEMPOTENCY_KEY =
+            "delete from idempotency_keys where transfer_id = ? and response_version is null";
+    private static final String INSERT_OUTBOX =
+            "insert into transfer_outbox (transfer_id, attempts, next_attempt_at, created_at) values (?, 0, ?, ?)";
+    private static final String CLAIM_OUTBOX =
+            "update transfer_outbox set attempts = attempts + 1, next_attempt_at = ? where transfer_id = ? and attempts = ?";
+    private static final String RESCHEDULE_OUTBOX =
+            "update transfer_outbox set next_attempt_at = ? where transfer_id = ?";
+    private static final String DELETE_OUTBOX =
+            "delete from transfer_outbox where transfer_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Callers run both inserts in one transaction so marker and transfer rows commit together.
+    public void insertIdempotencyKeys(Collection<PendingTransfer> pending) {
+        jdbcTemplate.batchUpdate(INSERT_IDEMPOTENCY_KEY, pending, pending.size(), (ps, p) -> {
+            ps.setString(1, p.idempotencyKey());
+            ps.setString(2, p.requestHash());
+            ps.setString(3, p.transferId());
+            ps.setObject(4, utc(p.createdAt()));
+        });
+    }
+
+    public void insertTransfers(Collection<PendingTransfer> pending) {
+        jdbcTemplate.batchUpdate(INSERT_TRANSFER, pending, pending.size(), (ps, p) -> {
+            ps.setObject(1, UUID.fromString(p.transferId()));
+            ps.setLong(2, p.fromAccountId());
+            ps.setLong(3, p.toAccountId());
+            ps.setBigDecimal(4, p.amount());
+            ps.setObject(5, utc(p.createdAt()));
+            ps.setString(6, Transfer.Status.PENDING.name());
+        });
+    }
+
+    // Same transaction as insertTransfers in async mode, so every PENDING transfer it accepted has a row.
+    public void insertOutbox(Collection<PendingTransfer> pending) {
+        jdbcTemplate.batchUpdate(INSERT_OUTBOX, pending, pending.size(), (ps, p) -> {
+            ps.setObject(1, UUID.fromString(p.transferId()));
+            ps.setObject(2, utc(p.createdAt()));
+            ps.setObject(3, utc(p.createdAt()));
+        });
+    }
+
+    // Leases each row until leaseUntil. Compare-and-set on attempts, so when several nodes poll the
+    // same rows each one is claimed by exactly one of them; returns the rows this caller won.
+    public List<TransferOutbox> claimOutbox(List<TransferOutbox> due, Instant leaseUntil) {
+        int[][] counts = jdbcTemplate.batchUpdate(CLAIM_OUTBOX, due, due.size(), (ps, o) -> {
+            ps.setObject(1, utc(leaseUntil));
+            ps.setObject(2, o.getTransferId());
+            ps.setInt(3, o.getAttempts());
+        });
+        List<TransferOutbox> claimed = new ArrayList<>(due.size());
+        int i = 0;
+        for (int[] chunk : counts) {
+            for (int count : chunk) {
+                if (count == 1) {
+                    TransferOutbox row = due.get(i);
+                    row.setAttempts(row.getAttempts() + 1);
+                    claimed.add(row);
+                }
+                i++;
+            }
+        }
+        return claimed;
+    }
+
+    public void rescheduleOutbox(UUID transferId, Instant nextAttemptAt) {
+        jdbcTemplate.update(RESCHEDULE_OUTBOX, utc(nextAttemptAt), transferId);
+    }
+
+    public void deleteOutbox(Collection<UUID> transferIds) {
+        jdbcTemplate.batchUpdate(DELETE_OUTBOX, transferIds, transferIds.size(),
+                (ps, id) -> ps.setObject(1, id));
+    }
+
+    public int finalizePending(String transferId, Transfer.Status status, String message) {
+        return jdbcTemplate.update(FINALIZE_TRANSFER,
+                status.name(), message, UUID.fromString(transferId), Transfer.Status.PENDING.name());
+    }
+
+    public int completeIdempotencyKey(String transferId, Transfer.Status status) {
+        return jdbcTemplate.update(COMPLETE_IDEMPOTENCY_KEY,
+                IdempotencyKey.RESPONSE_TRANSFER_V1, status.name(), transferId);
+    }
+
+    // Undo a reservation the ledger never saw; callers run both deletes in one transaction.
+    public int deleteOpenIdempotencyKey(String transferId) {
+        return jdbcTemplate.update(DELETE_OPEN_IDEMPOTENCY_KEY, transferId);
+    }
+
+    public int deletePendingTransfer(String transferId) {
+        return jdbcTemplate.update(DELETE_PENDING_TRANSFER, UUID.fromString(transferId), Transfer.Status.PENDING.name());
+    }
+
+    private static OffsetDateTime utc(Instant instant) {
+        return OffsetDateTime.ofInstant(instant, ZoneOffset.UTC);
+    }
+}
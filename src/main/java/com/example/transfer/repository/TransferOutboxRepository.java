@@ -0,0 +1,19 @@
+package com.example.transfer.repository;
+
+import com.example.transfer.entity.TransferOutbox;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface TransferOutboxRepository extends JpaRepository<TransferOutbox, UUID> {
+
+    List<TransferOutbox> findByNextAttemptAtLessThanEqualOrderByNextAttemptAt(Instant now, Limit limit);
+
+    @Query("select min(o.createdAt) from TransferOutbox o")
+    Optional<Instant> findOldestCreatedAt();
+}
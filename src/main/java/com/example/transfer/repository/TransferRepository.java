@@ -1,7 +1,73 @@
 package com.example.transfer.repository;
 
 import com.example.transfer.entity.Transfer;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
-public interface TransferRepository extends JpaRepository<Transfer, String> {
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface TransferRepository extends JpaRepository<Transfer, UUID> {
+
+    // Transfers in status created before cutoff that no outbox row still owns; those the outbox dispatcher
+    // re-drives, and recovering them here as well would post them to the ledger twice.
+    @Query("""
+            select t from Transfer t
+            where t.status = :status
+              and t.createdAt < :cutoff
+              and not exists (select 1 from TransferOutbox o where o.transferId = t.id)
+            order by t.createdAt
+            """)
+    List<Transfer> findUnownedByStatusBefore(@Param("status") Transfer.Status status,
+                                             @Param("cutoff") Instant cutoff,
+                                             Limit limit);
+
+    @Query("select new com.example.transfer.repository.TransferStatusView(t.id, t.status) from Transfer t where t.id = :id")
+    Optional<TransferStatusView> findStatusById(@Param("id") UUID id);
+
+    @Query("select new com.example.transfer.repository.TransferStatusView(t.id, t.status) from Transfer t where t.id in :ids")
+    List<TransferStatusView> findStatusByIdIn(@Param("ids") Collection<UUID> ids);
+
+    // Keyset pages of one side of an account's history, newest first. Rows strictly before
+    // (beforeAt, beforeId) in (created_at, id) order; the first page passes the range end and the nil UUID.
+    // Each side walks its own (account, created_at, id) index; an OR across both account columns
+    // could not.
+    @Query("""
+            select new com.example.transfer.repository.TransferHistoryView(
+                t.id, t.fromAccountId, t.toAccountId, t.amount, t.status, t.createdAt)
+            from Transfer t
+            where t.fromAccountId = :accountId
+              and t.status in :statuses
+              and t.createdAt >= :from
+              and (t.createdAt < :beforeAt or (t.createdAt = :beforeAt and t.id < :beforeId))
+            order by t.createdAt desc, t.id desc
+            """)
+    List<TransferHistoryView> findDebitsBefore(@Param("accountId") Long accountId,
+                                               @Param("statuses") Collection<Transfer.Status> statuses,
+                                               @Param("from") Instant from,
+                                               @Param("beforeAt") Instant beforeAt,
+                                               @Param("beforeId") UUID beforeId,
+                                               Limit limit);
+
+    @Query("""
+            select new com.example.transfer.repository.TransferHistoryView(
+                t.id, t.fromAccountId, t.toAccountId, t.amount, t.status, t.createdAt)
+            from Transfer t
+            where t.toAccountId = :accountId
+              and t.status in :statuses
+              and t.createdAt >= :from
+              and (t.createdAt < :beforeAt or (t.createdAt = :beforeAt and t.id < :beforeId))
+            order by t.createdAt desc, t.id desc
+            """)
+    List<TransferHistoryView> findCreditsBefore(@Param("accountId") Long accountId,
+                                                @Param("statuses") Collection<Transfer.Status> statuses,
+                                                @Param("from") Instant from,
+                                                @Param("beforeAt") Instant beforeAt,
+                                                @Param("beforeId") UUID beforeId,
+                                                Limit limit);
 }
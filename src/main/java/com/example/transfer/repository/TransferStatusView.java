@@ -0,0 +1,8 @@
+package com.example.transfer.repository;
+
+import com.example.transfer.entity.Transfer;
+
+import java.util.UUID;
+
+// The two columns GET /v1/transfers/{id} needs, without loading the entity.
+public record TransferStatusView(UUID id, Transfer.Status status) {}
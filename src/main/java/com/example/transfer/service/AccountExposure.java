@@ -0,0 +1,99 @@
+package com.example.transfer.service;
+
+import com.example.transfer.dto.LedgerTransferResponse;
+import com.example.transfer.exception.InsufficientFundsException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Fails a transfer before the ledger round trip when the debit account's last ledger-reported
+// balance already cannot cover it. Only ever rejects: anything that passes still goes to the ledger,
+// which stays the authority. Balances come from ledger responses and expire after balance-ttl-ms;
+// credits posted here drop the credited account's balance at once.
+//
+// Transfers this node has in flight are tracked per account, on both sides. While any transfer
+// touching an account is in flight its cached balance is not trusted: a pending credit could raise
+// it, and a pending debit's outcome is not known yet, so nothing is rejected for that account until
+// they are answered. A rejection therefore only uses a balance that reflects every transfer this node
+// sent. Credits and debits posted by other nodes or systems are not seen until the balance expires;
+// within balance-ttl-ms an outside credit can still make a transfer fail here with 422.
+@Component
+public class AccountExposure {
+
+    private final boolean enabled;
+    private final Cache<Long, BigDecimal> balances;
+    // transfers in flight per account, debits and credits alike; absent means none
+    private final ConcurrentHashMap<Long, Integer> inFlight = new ConcurrentHashMap<>();
+    private final Counter rejected;
+
+    public AccountExposure(MeterRegistry registry,
+                           @Value("${app.transfer.exposure.enabled:false}") boolean enabled,
+                           @Value("${app.transfer.exposure.max-accounts:100000}") long maxAccounts,
+                           @Value("${app.transfer.exposure.balance-ttl-ms:2000}") long balanceTtlMs) {
+        this.enabled = enabled;
+        this.balances = Caffeine.newBuilder()
+                .maximumSize(maxAccounts)
+                .expireAfterWrite(Duration.ofMillis(balanceTtlMs))
+                .build();
+        this.rejected = Counter.builder("transfer.exposure.rejected")
+                .description("Transfers refused locally because the cached balance could not cover them")
+                .register(registry);
+    }
+
+    public void check(Long accountId, BigDecimal amount) {
+        if (!covers(accountId, amount)) {
+            rejected.increment();
+            throw new InsufficientFundsException("Insufficient funds in account " + accountId);
+        }
+    }
+
+    public boolean covers(Long accountId, BigDecimal amount) {
+        if (!enabled) {
+            return true;
+        }
+        BigDecimal balance = balances.getIfPresent(accountId);
+        return balance == null || inFlight.containsKey(accountId) || amount.compareTo(balance) <= 0;
+    }
+
+    // Brackets a ledger call for a transfer: begin before it is sent, end once it is answered or
+    // has failed, after record().
+    public void begin(Long fromAccountId, Long toAccountId) {
+        if (!enabled) {
+            return;
+        }
+        inFlight.merge(fromAccountId, 1, Integer::sum);
+        inFlight.merge(toAccountId, 1, Integer::sum);
+    }
+
+    public void end(Long fromAccountId, Long toAccountId) {
+        if (!enabled) {
+            return;
+        }
+        inFlight.computeIfPresent(fromAccountId, (id, n) -> n == 1 ? null : n - 1);
+        inFlight.computeIfPresent(toAccountId, (id, n) -> n == 1 ? null : n - 1);
+    }
+
+    // Called with every answer the ledger gave for a transfer of amount from fromAccountId to toAccountId.
+    public void record(Long fromAccountId, Long toAccountId, BigDecimal amount, LedgerTransferResponse response) {
+        if (!enabled) {
+            return;
+        }
+        boolean posted = "SUCCESS".equalsIgnoreCase(response.status());
+        if (posted) {
+            balances.invalidate(toAccountId);
+        }
+        if (response.availableBalance() != null) {
+            balances.put(fromAccountId, response.availableBalance());
+        } else if (posted) {
+            // posted without a balance: the cached one is now too high by exactly amount
+            balances.asMap().computeIfPresent(fromAccountId, (id, balance) -> balance.subtract(amount));
+        }
+    }
+}
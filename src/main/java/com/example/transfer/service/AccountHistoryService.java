@@ -0,0 +1,162 @@
+package com.example.transfer.service;
+
+import com.example.transfer.dto.AccountTransferDto;
+import com.example.transfer.dto.AccountTransferPageDto;
+import com.example.transfer.entity.Transfer;
+import com.example.transfer.entity.UuidV7;
+import com.example.transfer.exception.BadRequestException;
+import com.example.transfer.repository.TransferHistoryView;
+import com.example.transfer.repository.TransferRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+// Account history with keyset pagination on (created_at, id), newest first. A page is the merge of
+// the newest debits and the newest credits strictly before the cursor, so each query is a bounded
+// range scan on its own index no matter how deep the client has paged.
+@Service
+public class AccountHistoryService {
+
+    private static final byte[] NEWLINE = {'\n'};
+    // only used as an upper bound; sorts after any created_at the service will write
+    private static final Instant END_OF_TIME = Instant.parse("9999-12-31T23:59:59Z");
+    private static final UUID NIL = new UUID(0, 0);
+
+    public record Filter(Transfer.Status status, Instant from, Instant to) {}
+
+    private record Cursor(Instant createdAt, UUID id) {}
+
+    private final TransferRepository transferRepository;
+    private final ObjectWriter rowWriter;
+    private final int maxPageSize;
+    private final int exportPageSize;
+
+    public AccountHistoryService(TransferRepository transferRepository,
+                                 ObjectMapper objectMapper,
+                                 @Value("${app.accounts.history.max-page-size:200}") int maxPageSize,
+                                 @Value("${app.accounts.history.export-page-size:1000}") int exportPageSize) {
+        this.transferRepository = transferRepository;
+        this.rowWriter = objectMapper.writerFor(AccountTransferDto.class);
+        this.maxPageSize = maxPageSize;
+        this.exportPageSize = exportPageSize;
+    }
+
+    public AccountTransferPageDto page(Long accountId, Filter filter, String cursor, int limit) {
+        if (limit < 1 || limit > maxPageSize) {
+            throw new BadRequestException("limit must be between 1 and " + maxPageSize);
+        }
+        Cursor start = cursor == null ? first(filter) : decode(cursor);
+        List<AccountTransferDto> rows = fetch(accountId, filter, start, limit + 1);
+        if (rows.size() <= limit) {
+            return new AccountTransferPageDto(rows, null);
+        }
+        List<AccountTransferDto> page = rows.subList(0, limit);
+        AccountTransferDto last = page.get(limit - 1);
+        return new AccountTransferPageDto(List.copyOf(page), encode(new Cursor(last.createdAt(), UUID.fromString(last.transferId()))));
+    }
+
+    // Writes every matching transfer as NDJSON, one keyset page at a time, so no query holds a
+    // cursor or transaction open while the client reads.
+    public void export(Long accountId, Filter filter, OutputStream out) throws IOException {
+        Cursor position = first(filter);
+        while (true) {
+            List<AccountTransferDto> rows = fetch(accountId, filter, position, exportPageSize);
+            for (AccountTransferDto row : rows) {
+                rowWriter.writeValue(out, row);
+                out.write(NEWLINE);
+            }
+            out.flush();
+            if (rows.size() < exportPageSize) {
+                return;
+            }
+            AccountTransferDto last = rows.get(rows.size() - 1);
+            position = new Cursor(last.createdAt(), UUID.fromString(last.transferId()));
+        }
+    }
+
+    private List<AccountTransferDto> fetch(Long accountId, Filter filter, Cursor before, int limit) {
+        Collection<Transfer.Status> statuses = filter.status() == null
+                ? EnumSet.allOf(Transfer.Status.class)
+                : Set.of(filter.status());
+        Instant from = filter.from() == null ? Instant.EPOCH : filter.from();
+        List<TransferHistoryView> debits = transferRepository.findDebitsBefore(
+                accountId, statuses, from, before.createdAt(), before.id(), Limit.of(limit));
+        List<TransferHistoryView> credits = transferRepository.findCreditsBefore(
+                accountId, statuses, from, before.createdAt(), before.id(), Limit.of(limit));
+        return merge(debits, credits, limit);
+    }
+
+    // Both inputs are sorted newest first; a transfer to the same account shows up on both sides.
+    private static List<AccountTransferDto> merge(List<TransferHistoryView> a, List<TransferHistoryView> b, int limit) {
+        List<AccountTransferDto> out = new ArrayList<>(Math.min(limit, a.size() + b.size()));
+        int i = 0;
+        int j = 0;
+        while (out.size() < limit && (i < a.size() || j < b.size())) {
+            TransferHistoryView next;
+            if (j >= b.size()) {
+                next = a.get(i++);
+            } else if (i >= a.size()) {
+                next = b.get(j++);
+            } else {
+                int cmp = compare(a.get(i), b.get(j));
+                if (cmp == 0) {
+                    j++;
+                    next = a.get(i++);
+                } else {
+                    next = cmp > 0 ? a.get(i++) : b.get(j++);
+                }
+            }
+            out.add(toDto(next));
+        }
+        return out;
+    }
+
+    private static int compare(TransferHistoryView x, TransferHistoryView y) {
+        int byTime = x.createdAt().compareTo(y.createdAt());
+        return byTime != 0 ? byTime : UuidV7.compare(x.id(), y.id());
+    }
+
+    private static AccountTransferDto toDto(TransferHistoryView v) {
+        return new AccountTransferDto(v.id().toString(), v.fromAccountId(), v.toAccountId(), v.amount(),
+                v.status().name(), v.createdAt());
+    }
+
+    // The range end is exclusive, which is exactly "before (to, nil uuid)".
+    private static Cursor first(Filter filter) {
+        return new Cursor(filter.to() == null ? END_OF_TIME : filter.to(), NIL);
+    }
+
+    // Opaque to clients: base64url of "<created_at>|<id>".
+    private static String encode(Cursor cursor) {
+        String raw = cursor.createdAt() + "|" + cursor.id();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Cursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int sep = raw.indexOf('|');
+            if (sep < 0) {
+                throw new BadRequestException("invalid cursor");
+            }
+            return new Cursor(Instant.parse(raw.substring(0, sep)), UUID.fromString(raw.substring(sep + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new BadRequestException("invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.transfer.service;
+
+import com.example.transfer.exception.ServiceUnavailableException;
+import com.example.transfer.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+// Serializes ledger dispatch per debit account. Each account with work in flight gets a lane: a
+// fair lock, so transfers from one account reach the ledger one at a time in arrival order, while
+// different accounts never wait on each other. Lanes exist only while they have callers, so memory
+// follows the number of busy accounts, not all accounts.
+//
+// A hot account is capped at max-depth queued transfers (429 beyond that) and a waiter gives up
+// after wait-timeout-ms (503), so one account cannot soak up the shared concurrency limit.
+@Component
+public class AccountLanes {
+
+    private static final class Lane {
+        final ReentrantLock lock = new ReentrantLock(true);
+        // changed only inside lanes.compute for this key
+        volatile int depth;
+    }
+
+    private final ConcurrentHashMap<Long, Lane> lanes = new ConcurrentHashMap<>();
+    private final boolean enabled;
+    private final int maxDepth;
+    private final long waitTimeoutMs;
+    private final DistributionSummary depthOnArrival;
+    private final Counter rejected;
+
+    public AccountLanes(MeterRegistry registry,
+                        @Value("${app.transfer.lanes.enabled:true}") boolean enabled,
+                        @Value("${app.transfer.lanes.max-depth:20}") int maxDepth,
+                        @Value("${app.transfer.lanes.wait-timeout-ms:10000}") long waitTimeoutMs) {
+        this.enabled = enabled;
+        this.maxDepth = maxDepth;
+        this.waitTimeoutMs = waitTimeoutMs;
+        this.depthOnArrival = DistributionSummary.builder("transfer.lane.depth")
+                .description("Transfers already queued for the same debit account when one arrives")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.rejected = Counter.builder("transfer.lane.rejected")
+                .description("Transfers refused because their debit account lane was full")
+                .register(registry);
+        Gauge.builder("transfer.lanes.active", lanes, ConcurrentHashMap::size)
+                .description("Debit accounts with transfers queued or in flight")
+                .register(registry);
+        Gauge.builder("transfer.lanes.depth.max", this, AccountLanes::maxLaneDepth)
+                .description("Deepest debit account lane")
+                .register(registry);
+    }
+
+    // Cheap early check so a request for a saturated account is refused before anything is written.
+    public void admit(Long accountId) {
+        if (!enabled) {
+            return;
+        }
+        Lane lane = lanes.get(accountId);
+        if (lane != null && lane.depth >= maxDepth) {
+            rejected.increment();
+            throw new TooManyRequestsException("Too many transfers in progress for account " + accountId);
+        }
+    }
+
+    public <T> T execute(Long accountId, Supplier<T> work) {
+        if (!enabled) {
+            return work.get();
+        }
+        Lane lane = join(accountId);
+        try {
+            if (!lane.lock.tryLock(waitTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new ServiceUnavailableException("Timed out waiting for earlier transfers of account " + accountId);
+            }
+        } catch (InterruptedException ie) {
+            leave(accountId, lane);
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Interrupted waiting for earlier transfers of account " + accountId);
+        } catch (RuntimeException e) {
+            leave(accountId, lane);
+            throw e;
+        }
+        try {
+            return work.get();
+        } finally {
+            lane.lock.unlock();
+            leave(accountId, lane);
+        }
+    }
+
+    private Lane join(Long accountId) {
+        Lane lane = lanes.compute(accountId, (id, current) -> {
+            Lane l = current != null ? current : new Lane();
+            if (l.depth >= maxDepth) {
+                // leaves the mapping untouched
+                rejected.increment();
+                throw new TooManyRequestsException("Too many transfers in progress for account " + accountId);
+            }
+            l.depth++;
+            return l;
+        });
+        depthOnArrival.record(lane.depth - 1);
+        return lane;
+    }
+
+    private void leave(Long accountId, Lane lane) {
+        lanes.computeIfPresent(accountId, (id, current) -> {
+            if (current != lane) {
+                return current;
+            }
+            return --current.depth == 0 ? null : current;
+        });
+    }
+
+    private double maxLaneDepth() {
+        int max = 0;
+        for (Lane lane : lanes.values()) {
+            max = Math.max(max, lane.depth);
+        }
+        return max;
+    }
+}
@@ -0,0 +1,230 @@
+package com.example.transfer.service;
+
+import com.example.transfer.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+// Caps concurrent ledger calls at a limit learned from their latency (gradient / Vegas style).
+// Each completed call compares its round trip with a slow moving average: while the ledger answers
+// as fast as usual the limit grows by about sqrt(limit), and as latency climbs it shrinks in
+// proportion, down to half per sample. Timeouts and errors cut it by 10%. Growth only happens
+// when the limit was actually in use, so a quiet period does not inflate it.
+//
+// Calls over the limit wait up to max-wait-ms in a bounded FIFO queue and are then refused with
+// 503, so an overloaded ledger sheds load gradually instead of only through the circuit breaker.
+@Component
+public class AdaptiveLedgerLimiter {
+
+    public enum Outcome { SUCCESS, DROPPED, IGNORED }
+
+    public record Permit(long startNanos, int inFlightAtStart) {}
+
+    private static final double BACKOFF_RATIO = 0.9;
+    private static final double MIN_GRADIENT = 0.5;
+    private static final int LONG_RTT_WINDOW = 100;
+
+    private final boolean enabled;
+    private final int minLimit;
+    private final int maxLimit;
+    private final int maxQueue;
+    private final Duration maxWait;
+    private final double smoothing;
+    private final double rttTolerance;
+    private final Counter rejected;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    // guarded by lock
+    private final ArrayDeque<Sinks.One<Permit>> waiters = new ArrayDeque<>();
+    private double limit;
+    private double longRttNanos;
+    private int inFlight;
+
+    public AdaptiveLedgerLimiter(MeterRegistry registry,
+                                 @Value("${app.ledger.limiter.enabled:true}") boolean enabled,
+                                 @Value("${app.ledger.limiter.initial-limit:20}") int initialLimit,
+                                 @Value("${app.ledger.limiter.min-limit:2}") int minLimit,
+                                 @Value("${app.ledger.limiter.max-limit:200}") int maxLimit,
+                                 @Value("${app.ledger.limiter.max-queue:50}") int maxQueue,
+                                 @Value("${app.ledger.limiter.max-wait-ms:100}") long maxWaitMs,
+                                 @Value("${app.ledger.limiter.smoothing:0.2}") double smoothing,
+                                 @Value("${app.ledger.limiter.rtt-tolerance:1.5}") double rttTolerance) {
+        this.enabled = enabled;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.maxQueue = maxQueue;
+        this.maxWait = Duration.ofMillis(maxWaitMs);
+        this.smoothing = smoothing;
+        this.rttTolerance = rttTolerance;
+        this.limit = initialLimit;
+        this.rejected = Counter.builder("ledger.limiter.rejected")
+                .description("Ledger calls refused because the adaptive limit and its queue were full")
+                .register(registry);
+        Gauge.builder("ledger.limiter.limit", this, AdaptiveLedgerLimiter::limit)
+                .description("Current adaptive limit on concurrent ledger calls")
+                .register(registry);
+        Gauge.builder("ledger.limiter.in.flight", this, AdaptiveLedgerLimiter::inFlight)
+                .description("Ledger calls currently holding a permit")
+                .register(registry);
+        Gauge.builder("ledger.limiter.queue", this, AdaptiveLedgerLimiter::queued)
+                .description("Ledger calls waiting for a permit")
+                .register(registry);
+    }
+
+    // Runs call under a permit and feeds its latency back into the limit.
+    public <T> Mono<T> run(Mono<T> call, Function<Throwable, Outcome> classify) {
+        if (!enabled) {
+            return call;
+        }
+        return Mono.usingWhen(acquire(),
+                permit -> call,
+                permit -> Mono.fromRunnable(() -> release(permit, Outcome.SUCCESS)),
+                (permit, error) -> Mono.fromRunnable(() -> release(permit, classify.apply(error))),
+                permit -> Mono.fromRunnable(() -> release(permit, Outcome.IGNORED)));
+    }
+
+    Mono<Permit> acquire() {
+        return Mono.defer(() -> {
+            Sinks.One<Permit> waiter;
+            lock.lock();
+            try {
+                if (inFlight < (int) limit) {
+                    return Mono.just(grant());
+                }
+                if (waiters.size() >= maxQueue) {
+                    rejected.increment();
+                    return Mono.error(limitExceeded());
+                }
+                waiter = Sinks.one();
+                waiters.addLast(waiter);
+            } finally {
+                lock.unlock();
+            }
+            return waiter.asMono()
+                    .timeout(maxWait, Mono.defer(() -> abandon(waiter)))
+                    .doOnCancel(() -> cancel(waiter));
+        });
+    }
+
+    void release(Permit permit, Outcome outcome) {
+        List<Sinks.One<Permit>> woken = new ArrayList<>();
+        List<Permit> granted = new ArrayList<>();
+        lock.lock();
+        try {
+            inFlight--;
+            if (outcome != Outcome.IGNORED) {
+                update(System.nanoTime() - permit.startNanos(), permit.inFlightAtStart(), outcome == Outcome.DROPPED);
+            }
+            while (inFlight < (int) limit && !waiters.isEmpty()) {
+                woken.add(waiters.pollFirst());
+                granted.add(grant());
+            }
+        } finally {
+            lock.unlock();
+        }
+        // outside the lock: emitting runs the waiter's ledger call on this thread
+        for (int i = 0; i < woken.size(); i++) {
+            woken.get(i).tryEmitValue(granted.get(i));
+        }
+    }
+
+    // caller holds lock
+    private Permit grant() {
+        inFlight++;
+        return new Permit(System.nanoTime(), inFlight);
+    }
+
+    // caller holds lock
+    private void update(long rttNanos, int inFlightAtStart, boolean dropped) {
+        if (dropped) {
+            limit = Math.max(minLimit, limit * BACKOFF_RATIO);
+            return;
+        }
+        if (longRttNanos == 0) {
+            longRttNanos = rttNanos;
+        } else {
+            longRttNanos += (rttNanos - longRttNanos) / LONG_RTT_WINDOW;
+        }
+        // latency fell well below the long-term view (e.g. after an incident): let it catch up
+        if (longRttNanos > 2.0 * rttNanos) {
+            longRttNanos *= 0.95;
+        }
+        double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, rttTolerance * longRttNanos / rttNanos));
+        double target = limit * gradient + Math.sqrt(limit);
+        if (target > limit && inFlightAtStart * 2 < limit) {
+            // app-limited: this sample says nothing about how much more the ledger could take
+            return;
+        }
+        limit = Math.max(minLimit, Math.min(maxLimit, limit * (1 - smoothing) + target * smoothing));
+    }
+
+    // The wait timed out. If the waiter is still queued it gives up; otherwise a permit was handed
+    // to it at the same moment, so take it rather than leak it.
+    private Mono<Permit> abandon(Sinks.One<Permit> waiter) {
+        lock.lock();
+        try {
+            if (waiters.remove(waiter)) {
+                rejected.increment();
+                return Mono.error(limitExceeded());
+            }
+        } finally {
+            lock.unlock();
+        }
+        return waiter.asMono();
+    }
+
+    private void cancel(Sinks.One<Permit> waiter) {
+        lock.lock();
+        try {
+            if (waiters.remove(waiter)) {
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+        // granted but never delivered
+        waiter.asMono().subscribe(permit -> release(permit, Outcome.IGNORED));
+    }
+
+    private static ServiceUnavailableException limitExceeded() {
+        return new ServiceUnavailableException("Ledger concurrency limit reached, retry later");
+    }
+
+    public double limit() {
+        lock.lock();
+        try {
+            return limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private double inFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private double queued() {
+        lock.lock();
+        try {
+            return waiters.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -3,10 +3,14 @@ package com.example.transfer.service;
 import com.example.transfer.dto.BatchTransferRequestDto;
 import com.example.transfer.dto.BatchTransferResponseDto;
 import com.example.transfer.dto.TransferResponseDto;
+import com.example.transfer.entity.Transfer;
+import com.example.transfer.exception.InsufficientFundsException;
+import com.example.transfer.repository.TransferJdbcRepository.PendingTransfer;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
 
-import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.Callable;
@@ -14,31 +18,56 @@ import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 
 @Service
 @RequiredArgsConstructor
 public class BatchTransferService {
     private final TransferService transferService;
+    private final TransferConcurrencyLimiter concurrencyLimiter;
 
     public BatchTransferResponseDto processBatch(BatchTransferRequestDto batch) {
+        // reject the whole batch up front rather than queueing items that would only time out
+        concurrencyLimiter.admit();
+        Semaphore batchSlots = concurrencyLimiter.newBatchSlots();
+        List<PendingTransfer> reserved = transferService.reserveBatch(batch.items());
+
         try (ExecutorService executor = createExecutor()) {
             List<Callable<BatchTransferResponseDto.Result>> tasks = new ArrayList<>();
-            for (BatchTransferRequestDto.Item item : batch.items()) {
+            for (int i = 0; i < batch.items().size(); i++) {
+                BatchTransferRequestDto.Item item = batch.items().get(i);
+                PendingTransfer pending = reserved.get(i);
                 tasks.add(() -> {
-                    TransferResponseDto resp = transferService.createTransfer(item.transfer(), item.idempotencyKey());
-                    return new BatchTransferResponseDto.Result(item.idempotencyKey(), resp);
+                    batchSlots.acquire();
+                    try {
+                        TransferResponseDto resp = concurrencyLimiter.execute(() -> pending != null
+                                ? transferService.completeReserved(pending)
+                                : transferService.createTransfer(item.transfer(), item.idempotencyKey()));
+                        return new BatchTransferResponseDto.Result(item.idempotencyKey(), resp);
+                    } catch (ResponseStatusException ex) {
+                        if (pending == null) {
+                            // nothing was written for it: a capacity refusal (429/503) can simply be retried
+                            return BatchTransferResponseDto.Result.refused(item.idempotencyKey(), ex.getStatusCode().value());
+                        }
+                        // already reserved: recovery will finish it, so report it as still pending
+                        return new BatchTransferResponseDto.Result(item.idempotencyKey(),
+                                new TransferResponseDto(pending.transferId(), Transfer.Status.PENDING.name()));
+                    } catch (InsufficientFundsException ex) {
+                        return BatchTransferResponseDto.Result.refused(item.idempotencyKey(), HttpStatus.UNPROCESSABLE_ENTITY.value());
+                    } finally {
+                        batchSlots.release();
+                    }
                 });
             }
 
             List<Future<BatchTransferResponseDto.Result>> futures = executor.invokeAll(tasks);
             List<BatchTransferResponseDto.Result> results = new ArrayList<>();
-            for (Future<BatchTransferResponseDto.Result> f : futures) {
+            for (int i = 0; i < futures.size(); i++) {
                 try {
-                    results.add(f.get());
+                    results.add(futures.get(i).get());
                 } catch (ExecutionException ex) {
-                    Throwable cause = ex.getCause();
                     TransferResponseDto failed = new TransferResponseDto(null, "FAILED");
-                    results.add(new BatchTransferResponseDto.Result(null, failed));
+                    results.add(new BatchTransferResponseDto.Result(batch.items().get(i).idempotencyKey(), failed));
                 }
             }
             return new BatchTransferResponseDto(results);
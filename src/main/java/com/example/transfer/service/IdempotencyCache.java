@@ -0,0 +1,45 @@
+package com.example.transfer.service;
+
+import com.example.transfer.dto.TransferResponseDto;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+@Component
+public class IdempotencyCache {
+
+    public record Entry(String requestHash, TransferResponseDto response, Instant createdAt) {}
+
+    private final Cache<String, Entry> cache;
+
+    public IdempotencyCache(@Value("${app.idempotency.cache.max-size:10000}") long maxSize,
+                            @Value("${app.idempotency.ttl-hours:24}") int ttlHours) {
+        Duration ttl = Duration.ofHours(ttlHours);
+        // entries expire together with the idempotency row they mirror, not ttl after caching
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(Expiry.<String, Entry>creating((key, entry) -> {
+                    Duration remaining = Duration.between(Instant.now(), entry.createdAt().plus(ttl));
+                    return remaining.isNegative() ? Duration.ZERO : remaining;
+                }))
+                .build();
+    }
+
+    public Optional<Entry> get(String idempotencyKey) {
+        return Optional.ofNullable(cache.getIfPresent(idempotencyKey));
+    }
+
+    // Only completed responses may be cached; placeholder markers must keep going to the DB.
+    public void put(String idempotencyKey, String requestHash, TransferResponseDto response, Instant createdAt) {
+        if (response == null) {
+            return;
+        }
+        cache.put(idempotencyKey, new Entry(requestHash, response, createdAt));
+    }
+}
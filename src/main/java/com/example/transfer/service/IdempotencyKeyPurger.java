@@ -0,0 +1,101 @@
+package com.example.transfer.service;
+
+import com.example.transfer.repository.IdempotencyKeyRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Component
+public class IdempotencyKeyPurger {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyKeyPurger.class);
+
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TransferMetrics metrics;
+    private final int ttlHours;
+    private final int chunkSize;
+    private final int maxChunksPerRun;
+
+    private final Counter purgedRows;
+    private final AtomicLong lagSeconds = new AtomicLong();
+
+    public IdempotencyKeyPurger(IdempotencyKeyRepository idempotencyKeyRepository,
+                                PlatformTransactionManager transactionManager,
+                                TransferMetrics metrics,
+                                MeterRegistry meterRegistry,
+                                @Value("${app.idempotency.ttl-hours:24}") int ttlHours,
+                                @Value("${app.idempotency.purge.chunk-size:500}") int chunkSize,
+                                @Value("${app.idempotency.purge.max-chunks-per-run:100}") int maxChunksPerRun) {
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.metrics = metrics;
+        this.ttlHours = ttlHours;
+        this.chunkSize = chunkSize;
+        this.maxChunksPerRun = maxChunksPerRun;
+        this.purgedRows = Counter.builder("idempotency.purge.rows")
+                .description("Expired idempotency keys deleted by the purger")
+                .register(meterRegistry);
+        Gauge.builder("idempotency.purge.lag", lagSeconds, AtomicLong::get)
+                .description("Age in seconds of the oldest idempotency key past its TTL")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(initialDelayString = "${app.idempotency.purge.interval-ms:60000}",
+            fixedDelayString = "${app.idempotency.purge.interval-ms:60000}")
+    public void purgeExpired() {
+        metrics.time(TransferMetrics.Stage.CLEANUP, this::purgeOnce);
+    }
+
+    private void purgeOnce() {
+        Instant cutoff = Instant.now().minusSeconds(ttlHours * 3600L);
+        long purged = 0;
+        int chunks = 0;
+        // one short transaction per chunk so a large backlog never holds locks for the whole sweep
+        while (chunks < maxChunksPerRun) {
+            Integer deleted = transactionTemplate.execute(status -> {
+                List<Long> ids = idempotencyKeyRepository.findExpiredIds(cutoff, Limit.of(chunkSize));
+                return ids.isEmpty() ? 0 : idempotencyKeyRepository.deleteByIdIn(ids);
+            });
+            int count = deleted == null ? 0 : deleted;
+            purged += count;
+            chunks++;
+            purgedRows.increment(count);
+            if (count < chunkSize) {
+                break;
+            }
+        }
+        updateLag(cutoff);
+
+        if (purged > 0) {
+            log.info("{}", Map.of(
+                    "event", "idempotency_keys_purged",
+                    "rows", purged,
+                    "chunks", chunks,
+                    "lagSeconds", lagSeconds.get()
+            ));
+        }
+    }
+
+    private void updateLag(Instant cutoff) {
+        long lag = idempotencyKeyRepository.findOldestCreatedAt()
+                .filter(oldest -> oldest.isBefore(cutoff))
+                .map(oldest -> cutoff.getEpochSecond() - oldest.getEpochSecond())
+                .orElse(0L);
+        lagSeconds.set(lag);
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.transfer.service;
+
+import com.example.transfer.dto.LedgerBatchTransferRequest;
+import com.example.transfer.dto.LedgerBatchTransferResponse;
+import com.example.transfer.dto.LedgerTransferRequest;
+import com.example.transfer.dto.LedgerTransferResponse;
+import com.example.transfer.logging.StructuredEvent;
+import com.example.transfer.logging.StructuredEvents;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.event.Level;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Collects ledger postings for a short window and sends them as one bulk call,
+// falling back to single calls while the ledger does not expose the bulk endpoint.
+@Component
+public class LedgerBatchDispatcher {
+
+    private static final Set<Integer> BULK_UNSUPPORTED = Set.of(
+            HttpStatus.NOT_FOUND.value(), HttpStatus.METHOD_NOT_ALLOWED.value(), HttpStatus.NOT_IMPLEMENTED.value());
+
+    private record Pending(LedgerTransferRequest request, Sinks.One<LedgerTransferResponse> result) {}
+
+    private final LedgerClient ledgerClient;
+    private final boolean enabled;
+    private final Duration unsupportedRecheck;
+    private final StructuredEvent bulkUnsupported;
+    private final Sinks.Many<Pending> queue = Sinks.many().unicast().onBackpressureBuffer();
+    // The unicast sink rejects concurrent producers, so emission is serialized rather than retried in a spin.
+    private final ReentrantLock emitLock = new ReentrantLock();
+    private final Disposable pipeline;
+
+    private volatile long bulkUnsupportedUntil;
+
+    public LedgerBatchDispatcher(LedgerClient ledgerClient,
+                                 StructuredEvents events,
+                                 @Value("${app.ledger.batch.enabled:false}") boolean enabled,
+                                 @Value("${app.ledger.batch.max-size:20}") int maxSize,
+                                 @Value("${app.ledger.batch.window-ms:5}") long windowMs,
+                                 @Value("${app.ledger.batch.unsupported-recheck-ms:300000}") long unsupportedRecheckMs) {
+        this.ledgerClient = ledgerClient;
+        this.enabled = enabled;
+        this.unsupportedRecheck = Duration.ofMillis(unsupportedRecheckMs);
+        this.bulkUnsupported = events.event(LedgerBatchDispatcher.class, "ledger_bulk_unsupported", Level.WARN);
+        this.pipeline = enabled
+                ? queue.asFlux()
+                        .bufferTimeout(maxSize, Duration.ofMillis(windowMs))
+                        .flatMap(this::send)
+                        .subscribe()
+                : null;
+    }
+
+    public Mono<LedgerTransferResponse> submit(LedgerTransferRequest request) {
+        if (!enabled || !bulkSupported()) {
+            return ledgerClient.postTransfer(request);
+        }
+        return Mono.defer(() -> {
+            Sinks.One<LedgerTransferResponse> result = Sinks.one();
+            Sinks.EmitResult emitted;
+            emitLock.lock();
+            try {
+                emitted = queue.tryEmitNext(new Pending(request, result));
+            } finally {
+                emitLock.unlock();
+            }
+            if (emitted.isFailure()) {
+                // Only reachable once the pipeline is shut down; post directly instead of losing the request.
+                return ledgerClient.postTransfer(request);
+            }
+            return result.asMono();
+        });
+    }
+
+    private Mono<Void> send(List<Pending> batch) {
+        if (batch.size() == 1 || !bulkSupported()) {
+            return sendSingly(batch);
+        }
+        List<LedgerTransferRequest> requests = batch.stream().map(Pending::request).toList();
+        return ledgerClient.postTransfers(new LedgerBatchTransferRequest(requests))
+                .doOnNext(resp -> fanOut(batch, resp))
+                .then()
+                .onErrorResume(WebClientResponseException.class, ex -> {
+                    if (!BULK_UNSUPPORTED.contains(ex.getStatusCode().value())) {
+                        return Mono.error(ex);
+                    }
+                    bulkUnsupportedUntil = System.currentTimeMillis() + unsupportedRecheck.toMillis();
+                    if (bulkUnsupported.enabled()) {
+                        bulkUnsupported.begin()
+                                .field("status", ex.getStatusCode().value())
+                                .field("recheckMs", unsupportedRecheck.toMillis())
+                                .log();
+                    }
+                    return sendSingly(batch);
+                })
+                .onErrorResume(ex -> {
+                    batch.forEach(p -> p.result().tryEmitError(ex));
+                    return Mono.empty();
+                });
+    }
+
+    private Mono<Void> sendSingly(List<Pending> batch) {
+        return Flux.fromIterable(batch)
+                .flatMap(p -> ledgerClient.postTransfer(p.request())
+                        .doOnNext(resp -> p.result().tryEmitValue(resp))
+                        .doOnError(ex -> p.result().tryEmitError(ex))
+                        .onErrorResume(ex -> Mono.empty()))
+                .then();
+    }
+
+    private void fanOut(List<Pending> batch, LedgerBatchTransferResponse resp) {
+        Map<String, LedgerBatchTransferResponse.Result> byTransferId = resp.results().stream()
+                .collect(Collectors.toMap(LedgerBatchTransferResponse.Result::transferId, Function.identity(), (a, b) -> b));
+        for (Pending p : batch) {
+            LedgerBatchTransferResponse.Result r = byTransferId.get(p.request().transferId());
+            if (r == null) {
+                p.result().tryEmitError(new IllegalStateException(
+                        "Ledger bulk response missing transfer " + p.request().transferId()));
+            } else {
+                p.result().tryEmitValue(new LedgerTransferResponse(r.status(), r.message(), r.availableBalance()));
+            }
+        }
+    }
+
+    private boolean bulkSupported() {
+        return System.currentTimeMillis() >= bulkUnsupportedUntil;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (pipeline != null) {
+            pipeline.dispose();
+        }
+    }
+}
@@ -1,10 +1,13 @@
 package com.example.transfer.service;
 
+import com.example.transfer.dto.LedgerBatchTransferRequest;
+import com.example.transfer.dto.LedgerBatchTransferResponse;
 import com.example.transfer.dto.LedgerTransferRequest;
 import com.example.transfer.dto.LedgerTransferResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
 
 @Component
 @RequiredArgsConstructor
@@ -12,12 +15,19 @@ public class LedgerClient {
 
     private final WebClient webClient;
 
-    public LedgerTransferResponse postTransfer(LedgerTransferRequest request) {
+    public Mono<LedgerTransferResponse> postTransfer(LedgerTransferRequest request) {
         return webClient.post()
                 .uri("v1/ledger/transfer")
                 .bodyValue(request)
                 .retrieve()
-                .bodyToMono(LedgerTransferResponse.class)
-                .block();
+                .bodyToMono(LedgerTransferResponse.class);
+    }
+
+    public Mono<LedgerBatchTransferResponse> postTransfers(LedgerBatchTransferRequest request) {
+        return webClient.post()
+                .uri("v1/ledger/transfers:batch")
+                .bodyValue(request)
+                .retrieve()
+                .bodyToMono(LedgerBatchTransferResponse.class);
     }
 }
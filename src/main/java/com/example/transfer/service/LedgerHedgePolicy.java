@@ -0,0 +1,88 @@
+package com.example.transfer.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Decides when a slow ledger call gets a second, hedged attempt: after the given percentile of
+// recent successful attempt latencies. The percentile is recomputed every RECOMPUTE_EVERY samples
+// over the last `window` ones, so the per-call cost is a volatile read. No hedging until
+// min-samples latencies have been seen.
+@Component
+public class LedgerHedgePolicy {
+
+    private static final int RECOMPUTE_EVERY = 64;
+
+    private final boolean enabled;
+    private final double percentile;
+    private final int minSamples;
+    private final long minDelayNanos;
+    private final Counter hedges;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    // guarded by lock
+    private final long[] samples;
+    private long recorded;
+
+    private volatile long delayNanos = -1;
+
+    public LedgerHedgePolicy(MeterRegistry registry,
+                             @Value("${app.ledger.hedge.enabled:false}") boolean enabled,
+                             @Value("${app.ledger.hedge.percentile:0.95}") double percentile,
+                             @Value("${app.ledger.hedge.window:1024}") int window,
+                             @Value("${app.ledger.hedge.min-samples:100}") int minSamples,
+                             @Value("${app.ledger.hedge.min-delay-ms:10}") long minDelayMs) {
+        this.enabled = enabled;
+        this.percentile = percentile;
+        this.samples = new long[window];
+        this.minSamples = Math.min(minSamples, window);
+        this.minDelayNanos = Duration.ofMillis(minDelayMs).toNanos();
+        this.hedges = Counter.builder("ledger.hedges")
+                .description("Hedged second attempts sent to the ledger")
+                .register(registry);
+        Gauge.builder("ledger.hedge.delay", this, p -> Math.max(p.delayNanos, 0) / 1e6)
+                .description("Current delay before a ledger call is hedged")
+                .baseUnit("milliseconds")
+                .register(registry);
+    }
+
+    public boolean enabled() {
+        return enabled;
+    }
+
+    public Optional<Duration> delay() {
+        long nanos = delayNanos;
+        return enabled && nanos >= 0 ? Optional.of(Duration.ofNanos(nanos)) : Optional.empty();
+    }
+
+    public void record(long latencyNanos) {
+        if (!enabled) {
+            return;
+        }
+        lock.lock();
+        try {
+            samples[(int) (recorded % samples.length)] = latencyNanos;
+            recorded++;
+            if (recorded == minSamples || (recorded > minSamples && recorded % RECOMPUTE_EVERY == 0)) {
+                int n = (int) Math.min(recorded, samples.length);
+                long[] sorted = Arrays.copyOf(samples, n);
+                Arrays.sort(sorted);
+                long p = sorted[Math.clamp((long) Math.ceil(percentile * n) - 1, 0, n - 1)];
+                delayNanos = Math.max(minDelayNanos, p);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void hedged() {
+        hedges.increment();
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.transfer.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+// Token bucket shared by all ledger retries and hedges. Every original call deposits `ratio` of a
+// token and every extra attempt spends a whole one, so extra load stays within about ratio of
+// normal traffic however badly the ledger is failing; min-per-second keeps a trickle of retries
+// possible when traffic is low. Retries and hedges that find the bucket empty are skipped.
+@Component
+public class LedgerRetryBudget {
+
+    private final double ratio;
+    private final double minPerSecond;
+    private final double maxTokens;
+    private final Counter exhausted;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    // guarded by lock
+    private double tokens;
+    private long lastRefillNanos = System.nanoTime();
+
+    public LedgerRetryBudget(MeterRegistry registry,
+                             @Value("${app.ledger.retry-budget.ratio:0.1}") double ratio,
+                             @Value("${app.ledger.retry-budget.min-per-second:1}") double minPerSecond,
+                             @Value("${app.ledger.retry-budget.max-tokens:20}") double maxTokens) {
+        this.ratio = ratio;
+        this.minPerSecond = minPerSecond;
+        this.maxTokens = maxTokens;
+        this.tokens = maxTokens;
+        this.exhausted = Counter.builder("ledger.retry.budget.exhausted")
+                .description("Ledger retries or hedges skipped because the retry budget was empty")
+                .register(registry);
+        Gauge.builder("ledger.retry.budget.tokens", this, LedgerRetryBudget::tokens)
+                .description("Extra ledger attempts currently affordable")
+                .register(registry);
+    }
+
+    public void deposit() {
+        lock.lock();
+        try {
+            tokens = Math.min(maxTokens, tokens + ratio);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean tryWithdraw() {
+        lock.lock();
+        try {
+            refill();
+            if (tokens >= 1) {
+                tokens -= 1;
+                return true;
+            }
+        } finally {
+            lock.unlock();
+        }
+        exhausted.increment();
+        return false;
+    }
+
+    // caller holds lock
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(maxTokens, tokens + minPerSecond * (now - lastRefillNanos) / 1e9);
+        lastRefillNanos = now;
+    }
+
+    private double tokens() {
+        lock.lock();
+        try {
+            refill();
+            return tokens;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
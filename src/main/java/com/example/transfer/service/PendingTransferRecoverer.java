@@ -0,0 +1,67 @@
+package com.example.transfer.service;
+
+import com.example.transfer.entity.Transfer;
+import com.example.transfer.logging.StructuredEvent;
+import com.example.transfer.logging.StructuredEvents;
+import com.example.transfer.repository.TransferRepository;
+import org.slf4j.event.Level;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.List;
+
+@Component
+public class PendingTransferRecoverer {
+
+    private final TransferRepository transferRepository;
+    private final TransferService transferService;
+    private final long pendingTimeoutMs;
+    private final int batchSize;
+    private final StructuredEvent recovered;
+    private final StructuredEvent recoveryFailed;
+
+    public PendingTransferRecoverer(TransferRepository transferRepository,
+                                    TransferService transferService,
+                                    StructuredEvents events,
+                                    @Value("${app.transfer.recovery.pending-timeout-ms:60000}") long pendingTimeoutMs,
+                                    @Value("${app.transfer.recovery.batch-size:100}") int batchSize) {
+        this.transferRepository = transferRepository;
+        this.transferService = transferService;
+        this.pendingTimeoutMs = pendingTimeoutMs;
+        this.batchSize = batchSize;
+        this.recovered = events.event(PendingTransferRecoverer.class, "pending_transfer_recovered", Level.WARN);
+        this.recoveryFailed = events.event(PendingTransferRecoverer.class, "pending_transfer_recovery_failed", Level.ERROR);
+    }
+
+    // pending-timeout-ms must stay well above the ledger time limiter so live requests are not picked up
+    @Scheduled(initialDelayString = "${app.transfer.recovery.interval-ms:30000}",
+            fixedDelayString = "${app.transfer.recovery.interval-ms:30000}")
+    public void recoverStuckTransfers() {
+        Instant cutoff = Instant.now().minusMillis(pendingTimeoutMs);
+        List<Transfer> stuck = transferRepository.findUnownedByStatusBefore(
+                Transfer.Status.PENDING, cutoff, Limit.of(batchSize));
+
+        for (Transfer transfer : stuck) {
+            try {
+                transferService.resumePending(transfer);
+                if (recovered.enabled()) {
+                    recovered.begin()
+                            .field("transferId", transfer.getId().toString())
+                            .field("createdAt", transfer.getCreatedAt().toString())
+                            .log();
+                }
+            } catch (Exception e) {
+                if (recoveryFailed.enabled()) {
+                    recoveryFailed.begin()
+                            .field("transferId", transfer.getId().toString())
+                            .field("errorType", e.getClass().getSimpleName())
+                            .field("message", e.getMessage())
+                            .log();
+                }
+            }
+        }
+    }
+}
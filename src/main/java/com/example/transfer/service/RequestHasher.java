@@ -0,0 +1,129 @@
+package com.example.transfer.service;
+
+import com.example.transfer.dto.TransferRequestDto;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Fingerprint of a transfer request, stored with its idempotency key so a reused key with a
+// different body is rejected.
+//
+// v2 hashes SHA-256 over a fixed binary layout instead of "from|to|amount" text:
+//   from (8) | to (8) | scale (4) | 0 + unscaled (8)     when the unscaled value fits a long
+//   from (8) | to (8) | scale (4) | 1 + two's-complement bytes of the unscaled value otherwise
+// and are written as "2." + base64url. Rows written before v2 hold a bare base64url hash, which
+// never contains '.', so matches() recognises them and checks against the legacy encoding.
+//
+// Digests are borrowed from a small pool rather than held per thread: a ThreadLocal would build a
+// fresh digest for every virtual thread, while a pooled one is cloned once and reused.
+final class RequestHasher {
+
+    static final String V2_PREFIX = "2.";
+
+    private static final int POOL_SIZE = 64;
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final MessageDigest PROTOTYPE = sha256();
+    private static final AtomicReferenceArray<Scratch> POOL = new AtomicReferenceArray<>(POOL_SIZE);
+
+    private RequestHasher() {
+    }
+
+    static String hash(TransferRequestDto request) {
+        Scratch s = acquire();
+        try {
+            BigDecimal amount = request.amount();
+            int n = 0;
+            n = putLong(s.buf, n, request.fromAccountId());
+            n = putLong(s.buf, n, request.toAccountId());
+            n = putInt(s.buf, n, amount.scale());
+            BigInteger unscaled = amount.unscaledValue();
+            if (unscaled.bitLength() < Long.SIZE) {
+                s.buf[n++] = 0;
+                n = putLong(s.buf, n, unscaled.longValue());
+                s.digest.update(s.buf, 0, n);
+            } else {
+                s.buf[n++] = 1;
+                s.digest.update(s.buf, 0, n);
+                s.digest.update(unscaled.toByteArray());
+            }
+            return V2_PREFIX + ENCODER.encodeToString(s.digest.digest());
+        } finally {
+            release(s);
+        }
+    }
+
+    static boolean matches(String storedHash, String requestHash, TransferRequestDto request) {
+        if (storedHash.equals(requestHash)) {
+            return true;
+        }
+        return !storedHash.startsWith(V2_PREFIX) && storedHash.equals(legacyHash(request));
+    }
+
+    // Pre-v2 format; only computed when a stored row still carries it.
+    static String legacyHash(TransferRequestDto request) {
+        MessageDigest digest = sha256();
+        String string = request.fromAccountId() + "|" + request.toAccountId() + "|" + request.amount().toPlainString();
+        return ENCODER.encodeToString(digest.digest(string.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static int putLong(byte[] b, int off, long v) {
+        for (int i = 7; i >= 0; i--) {
+            b[off + i] = (byte) v;
+            v >>>= 8;
+        }
+        return off + 8;
+    }
+
+    private static int putInt(byte[] b, int off, int v) {
+        for (int i = 3; i >= 0; i--) {
+            b[off + i] = (byte) v;
+            v >>>= 8;
+        }
+        return off + 4;
+    }
+
+    private static final class Scratch {
+        final MessageDigest digest = cloneDigest();
+        final byte[] buf = new byte[32];
+    }
+
+    private static Scratch acquire() {
+        for (int i = 0; i < POOL_SIZE; i++) {
+            Scratch s = POOL.getAndSet(i, null);
+            if (s != null) {
+                return s;
+            }
+        }
+        return new Scratch();
+    }
+
+    private static void release(Scratch s) {
+        s.digest.reset();
+        for (int i = 0; i < POOL_SIZE; i++) {
+            if (POOL.compareAndSet(i, null, s)) {
+                return;
+            }
+        }
+    }
+
+    private static MessageDigest cloneDigest() {
+        try {
+            return (MessageDigest) PROTOTYPE.clone();
+        } catch (CloneNotSupportedException e) {
+            return sha256();
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
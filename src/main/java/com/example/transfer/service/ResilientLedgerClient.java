@@ -2,54 +2,215 @@ package com.example.transfer.service;
 
 import com.example.transfer.dto.LedgerTransferRequest;
 import com.example.transfer.dto.LedgerTransferResponse;
-import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
-import io.github.resilience4j.timelimiter.annotation.TimeLimiter;
-import lombok.RequiredArgsConstructor;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import com.example.transfer.exception.LedgerNotCalledException;
+import com.example.transfer.exception.ServiceUnavailableException;
+import com.example.transfer.logging.StructuredEvent;
+import com.example.transfer.logging.StructuredEvents;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import io.github.resilience4j.reactor.retry.RetryOperator;
+import io.github.resilience4j.reactor.timelimiter.TimeLimiterOperator;
+import io.github.resilience4j.retry.Retry;
+import io.github.resilience4j.retry.RetryConfig;
+import io.github.resilience4j.retry.RetryRegistry;
+import io.github.resilience4j.timelimiter.TimeLimiter;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import org.slf4j.event.Level;
 import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
-import java.util.Map;
+import java.io.IOException;
+import java.time.Duration;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Service
-@RequiredArgsConstructor
 public class ResilientLedgerClient {
 
-    private static final Logger log = LoggerFactory.getLogger(ResilientLedgerClient.class);
+    private static final String INSTANCE = "ledger";
 
-    private final LedgerClient delegate;
+    // a transient error the retry budget would not pay for; never retried, unwrapped before the fallback
+    private static final class RetryDeclined extends RuntimeException {
+        RetryDeclined(Throwable cause) {
+            super(cause.getMessage(), cause, false, false);
+        }
+    }
+
+    private final LedgerBatchDispatcher delegate;
+    private final CircuitBreaker circuitBreaker;
+    private final TimeLimiter timeLimiter;
+    private final AdaptiveLedgerLimiter limiter;
+    private final Retry retry;
+    private final int maxAttempts;
+    private final LedgerRetryBudget retryBudget;
+    private final LedgerHedgePolicy hedgePolicy;
+    private final TransferMetrics metrics;
+    private final StructuredEvent callAttempt;
+    private final StructuredEvent callFailed;
+
+    public ResilientLedgerClient(LedgerBatchDispatcher delegate,
+                                 CircuitBreakerRegistry circuitBreakerRegistry,
+                                 TimeLimiterRegistry timeLimiterRegistry,
+                                 RetryRegistry retryRegistry,
+                                 AdaptiveLedgerLimiter limiter,
+                                 LedgerRetryBudget retryBudget,
+                                 LedgerHedgePolicy hedgePolicy,
+                                 TransferMetrics metrics,
+                                 StructuredEvents events) {
+        this.delegate = delegate;
+        this.limiter = limiter;
+        this.retryBudget = retryBudget;
+        this.hedgePolicy = hedgePolicy;
+        this.metrics = metrics;
+        this.callAttempt = events.event(ResilientLedgerClient.class, "ledger_call_attempt", Level.DEBUG);
+        this.callFailed = events.event(ResilientLedgerClient.class, "ledger_call_failed", Level.ERROR);
+        this.circuitBreaker = circuitBreakerRegistry.circuitBreaker(INSTANCE);
+        this.timeLimiter = timeLimiterRegistry.timeLimiter(INSTANCE);
+        // attempts and backoff come from resilience4j.retry.instances.ledger; which errors are worth
+        // retrying is decided here, and whether the budget allows it per call in postTransfer
+        RetryConfig configured = retryRegistry.retry(INSTANCE).getRetryConfig();
+        this.maxAttempts = configured.getMaxAttempts();
+        this.retry = Retry.of(INSTANCE, RetryConfig.from(configured)
+                .retryOnException(ResilientLedgerClient::isTransient)
+                .build());
+        // replaced in the registry so the resilience4j retry metrics follow this instance
+        retryRegistry.replace(INSTANCE, retry);
+    }
 
-    @CircuitBreaker(name = "ledger", fallbackMethod = "fallback")
-    @TimeLimiter(name = "ledger")
     public CompletableFuture<LedgerTransferResponse> postTransfer(LedgerTransferRequest request) {
-        // Structured “attempt” log
-        log.info("{}", Map.of(
-                "event", "ledger_call_attempt",
-                "fromAccountId", request.fromAccountId(),
-                "toAccountId", request.toAccountId(),
-                "amount", request.amount(),
-                "transferId", request.transferId()
-        ));
-
-        // Wrap sync client in CompletableFuture for @TimeLimiter
-        return CompletableFuture.supplyAsync(() -> delegate.postTransfer(request));
-    }
-
-    // Fallback must match return type and accept Throwable last
-    private CompletableFuture<LedgerTransferResponse> fallback(LedgerTransferRequest req, Throwable ex) {
-        log.error("{}", Map.of(
-                "event", "ledger_call_failed",
-                "fromAccountId", req.fromAccountId(),
-                "toAccountId", req.toAccountId(),
-                "amount", req.amount(),
-                "transferId", req.transferId(),
-                "errorType", ex.getClass().getSimpleName(),
-                "message", ex.getMessage()
-        ));
+        return post(request, true);
+    }
+
+    // For callers that retry later on their own (the outbox): an open breaker, a timeout or a
+    // transient error still failing after retries fails the future instead of degrading to a
+    // FAILURE response, which would fail the transfer for good. Rejections by the ledger still degrade.
+    public CompletableFuture<LedgerTransferResponse> postTransferOrRetryLater(LedgerTransferRequest request) {
+        return post(request, false);
+    }
+
+    private CompletableFuture<LedgerTransferResponse> post(LedgerTransferRequest request, boolean degrade) {
+        // Structured “attempt” log; DEBUG by default since it fires on every call
+        if (callAttempt.enabled()) {
+            callAttempt.begin()
+                    .field("fromAccountId", request.fromAccountId())
+                    .field("toAccountId", request.toAccountId())
+                    .field("amount", request.amount())
+                    .field("transferId", request.transferId())
+                    .log();
+        }
+
+        // Retrying and hedging are safe because the ledger is idempotent on transferId.
+        retryBudget.deposit();
+        // A token is spent only when another attempt will actually follow; a transient error the
+        // budget cannot pay for is wrapped so the retry gives up on it, then unwrapped again.
+        AtomicInteger attempts = new AtomicInteger();
+        AtomicBoolean sent = new AtomicBoolean();
+        Mono<LedgerTransferResponse> primary = Mono.defer(() -> {
+                    int made = attempts.incrementAndGet();
+                    return attempt(request, sent).onErrorMap(
+                            ex -> isTransient(ex) && made < maxAttempts && !retryBudget.tryWithdraw(),
+                            RetryDeclined::new);
+                })
+                .transformDeferred(RetryOperator.of(retry))
+                .onErrorMap(RetryDeclined.class, Throwable::getCause);
+        return hedge(primary, request, sent)
+                // a refusal before any attempt went out lets the caller release the reservation
+                .onErrorMap(ex -> ex instanceof ServiceUnavailableException && !sent.get(),
+                        ex -> new LedgerNotCalledException(((ServiceUnavailableException) ex).getReason()))
+                .onErrorResume(ex -> !(ex instanceof ServiceUnavailableException) && (degrade || !retryLater(ex)),
+                        ex -> Mono.just(fallback(request, ex)))
+                .toFuture();
+    }
+
+    // One ledger call. Time limiter sits inside the breaker so timeouts are recorded as failures,
+    // matching the order the annotations used to apply. The adaptive limiter wraps both: its
+    // refusals never reach the breaker, and surface as 503 instead of being failed by the fallback.
+    // sent is set once a request has actually been handed to the ledger.
+    private Mono<LedgerTransferResponse> attempt(LedgerTransferRequest request, AtomicBoolean sent) {
+        Mono<LedgerTransferResponse> call = Mono.defer(() -> {
+            sent.set(true);
+            long start = System.nanoTime();
+            return delegate.submit(request)
+                    .doOnNext(resp -> hedgePolicy.record(System.nanoTime() - start));
+        })
+                .transformDeferred(TimeLimiterOperator.of(timeLimiter))
+                .transformDeferred(CircuitBreakerOperator.of(circuitBreaker));
+        return limiter.run(call, ResilientLedgerClient::classify);
+    }
+
+    // Races a second attempt against a primary that is slower than the recent percentile, if the
+    // retry budget allows. The first answer wins and the other call is cancelled. Either side may
+    // fail without ending the race: a failed hedge leaves the primary to finish, and a primary that
+    // fails while a hedge is in flight waits for it, surfacing its own error only if the hedge fails too.
+    private Mono<LedgerTransferResponse> hedge(Mono<LedgerTransferResponse> primary, LedgerTransferRequest request,
+                                               AtomicBoolean sent) {
+        Duration delay = hedgePolicy.delay().orElse(null);
+        if (delay == null) {
+            return primary;
+        }
+        AtomicBoolean hedging = new AtomicBoolean();
+        AtomicReference<Throwable> primaryError = new AtomicReference<>();
+        Mono<LedgerTransferResponse> hedged = Mono.delay(delay)
+                .filter(t -> retryBudget.tryWithdraw())
+                .flatMap(t -> {
+                    hedgePolicy.hedged();
+                    hedging.set(true);
+                    return attempt(request, sent);
+                })
+                .onErrorResume(ex -> Mono.empty());
+        Mono<LedgerTransferResponse> first = primary.onErrorResume(ex -> hedging.get(), ex -> {
+            primaryError.set(ex);
+            return Mono.empty();
+        });
+        return Flux.merge(first, hedged).next()
+                .switchIfEmpty(Mono.defer(() -> Mono.error(primaryError.get())));
+    }
+
+    // Timeouts, connection failures and 5xx may succeed on another try. An open breaker, a limiter
+    // refusal or a 4xx will not.
+    static boolean isTransient(Throwable ex) {
+        if (ex instanceof WebClientResponseException response) {
+            return response.getStatusCode().is5xxServerError();
+        }
+        return ex instanceof TimeoutException
+                || ex instanceof WebClientRequestException
+                || ex instanceof IOException;
+    }
+
+    private static boolean retryLater(Throwable ex) {
+        return isTransient(ex) || ex instanceof CallNotPermittedException;
+    }
+
+    // an open breaker answers without touching the ledger, so its latency says nothing about load
+    private static AdaptiveLedgerLimiter.Outcome classify(Throwable ex) {
+        return ex instanceof CallNotPermittedException
+                ? AdaptiveLedgerLimiter.Outcome.IGNORED
+                : AdaptiveLedgerLimiter.Outcome.DROPPED;
+    }
+
+    private LedgerTransferResponse fallback(LedgerTransferRequest req, Throwable ex) {
+        metrics.fallback();
+        if (callFailed.enabled()) {
+            callFailed.begin()
+                    .field("fromAccountId", req.fromAccountId())
+                    .field("toAccountId", req.toAccountId())
+                    .field("amount", req.amount())
+                    .field("transferId", req.transferId())
+                    .field("errorType", ex.getClass().getSimpleName())
+                    .field("message", ex.getMessage())
+                    .log();
+        }
 
         // Degrade gracefully — let caller mark transfer FAILED
-        return CompletableFuture.completedFuture(new LedgerTransferResponse("FAILURE",
-                "Ledger unavailable: " + ex.getClass().getSimpleName()));
+        return new LedgerTransferResponse("FAILURE",
+                "Ledger unavailable: " + ex.getClass().getSimpleName());
     }
 }
@@ -0,0 +1,225 @@
+package com.example.transfer.service;
+
+import com.example.transfer.dto.BatchTransferRequestDto;
+import com.example.transfer.dto.BatchTransferResponseDto;
+import com.example.transfer.dto.TransferResponseDto;
+import com.example.transfer.exception.InsufficientFundsException;
+import com.example.transfer.logging.StructuredEvent;
+import com.example.transfer.logging.StructuredEvents;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.validation.Validator;
+import org.slf4j.event.Level;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Processes an NDJSON stream of batch items with bounded concurrency. Only in-flight items are held
+// in memory: reading the next line blocks until a slot frees up, and each result is written and
+// flushed as soon as its transfer completes, so output order follows completion order. Each line is
+// parsed on its own, so a malformed line yields a FAILED result instead of ending the stream; a line
+// over max-line-length is skipped without being buffered and answered with a 413 refusal. Items the
+// service refuses (429/503 capacity, 409 in progress, 422 funds) come back REJECTED with that status,
+// so a client can tell what to retry from what failed.
+@Service
+public class StreamingTransferService {
+
+    private static final byte[] NEWLINE = {'\n'};
+
+    private final TransferService transferService;
+    private final TransferConcurrencyLimiter concurrencyLimiter;
+    private final Validator validator;
+    private final ObjectReader itemReader;
+    private final ObjectReader treeReader;
+    private final ObjectWriter resultWriter;
+    private final int maxConcurrency;
+    private final int maxLineLength;
+    private final StructuredEvent streamCompleted;
+
+    public StreamingTransferService(TransferService transferService,
+                                    TransferConcurrencyLimiter concurrencyLimiter,
+                                    Validator validator,
+                                    ObjectMapper objectMapper,
+                                    StructuredEvents events,
+                                    @Value("${app.batch.stream.max-concurrency:16}") int maxConcurrency,
+                                    @Value("${app.batch.stream.max-line-length:16384}") int maxLineLength) {
+        this.transferService = transferService;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.validator = validator;
+        this.itemReader = objectMapper.readerFor(BatchTransferRequestDto.Item.class);
+        this.treeReader = objectMapper.reader();
+        this.resultWriter = objectMapper.writerFor(BatchTransferResponseDto.Result.class);
+        this.maxConcurrency = maxConcurrency;
+        this.maxLineLength = maxLineLength;
+        this.streamCompleted = events.event(StreamingTransferService.class, "transfer_stream_completed", Level.INFO);
+    }
+
+    // called before the response is committed so a saturated service can still answer 429
+    public void admit() {
+        concurrencyLimiter.admit();
+    }
+
+    public void process(InputStream in, OutputStream out) throws IOException {
+        Semaphore slots = new Semaphore(maxConcurrency);
+        ReentrantLock writeLock = new ReentrantLock();
+        AtomicReference<IOException> writeFailure = new AtomicReference<>();
+        long items = 0;
+        long malformed = 0;
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+             BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            LineReader lines = new LineReader(reader, maxLineLength);
+            String line;
+            // stop pulling input once the client has gone away
+            while (writeFailure.get() == null && (line = lines.next()) != null) {
+                if (lines.oversized) {
+                    items++;
+                    malformed++;
+                    try {
+                        write(out, writeLock, BatchTransferResponseDto.Result.refused(null, HttpStatus.PAYLOAD_TOO_LARGE.value()));
+                    } catch (IOException e) {
+                        writeFailure.compareAndSet(null, e);
+                    }
+                    continue;
+                }
+                if (line.isBlank()) {
+                    continue;
+                }
+                items++;
+                BatchTransferRequestDto.Item item;
+                try {
+                    item = itemReader.readValue(line);
+                } catch (JsonProcessingException ex) {
+                    malformed++;
+                    try {
+                        write(out, writeLock, failed(idempotencyKeyOf(line)));
+                    } catch (IOException e) {
+                        writeFailure.compareAndSet(null, e);
+                    }
+                    continue;
+                }
+                slots.acquire();
+                executor.submit(() -> {
+                    try {
+                        write(out, writeLock, processItem(item));
+                    } catch (IOException e) {
+                        writeFailure.compareAndSet(null, e);
+                    } finally {
+                        slots.release();
+                    }
+                });
+            }
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Stream interrupted", ie);
+        }
+        if (writeFailure.get() != null) {
+            throw writeFailure.get();
+        }
+
+        if (streamCompleted.enabled()) {
+            streamCompleted.begin()
+                    .field("items", items)
+                    .field("malformed", malformed)
+                    .log();
+        }
+    }
+
+    private BatchTransferResponseDto.Result processItem(BatchTransferRequestDto.Item item) {
+        if (item == null || item.idempotencyKey() == null || item.transfer() == null
+                || !validator.validate(item).isEmpty()) {
+            return failed(item == null ? null : item.idempotencyKey());
+        }
+        try {
+            TransferResponseDto resp = concurrencyLimiter.execute(
+                    () -> transferService.createTransfer(item.transfer(), item.idempotencyKey()));
+            return new BatchTransferResponseDto.Result(item.idempotencyKey(), resp);
+        } catch (ResponseStatusException ex) {
+            return BatchTransferResponseDto.Result.refused(item.idempotencyKey(), ex.getStatusCode().value());
+        } catch (InsufficientFundsException ex) {
+            return BatchTransferResponseDto.Result.refused(item.idempotencyKey(), HttpStatus.UNPROCESSABLE_ENTITY.value());
+        } catch (RuntimeException ex) {
+            return failed(item.idempotencyKey());
+        }
+    }
+
+    // best effort, so the client can still correlate a line whose fields have the wrong types
+    private String idempotencyKeyOf(String line) {
+        try {
+            return treeReader.readTree(line).path("idempotencyKey").textValue();
+        } catch (JsonProcessingException ex) {
+            return null;
+        }
+    }
+
+    private static BatchTransferResponseDto.Result failed(String idempotencyKey) {
+        return new BatchTransferResponseDto.Result(idempotencyKey, new TransferResponseDto(null, "FAILED"));
+    }
+
+    private void write(OutputStream out, ReentrantLock writeLock, BatchTransferResponseDto.Result result) throws IOException {
+        byte[] line = resultWriter.writeValueAsBytes(result);
+        writeLock.lock();
+        try {
+            out.write(line);
+            out.write(NEWLINE);
+            out.flush();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Line splitter that never holds more than maxLength chars of one line. A longer line is read
+    // through to its end and returned empty with oversized set.
+    private static final class LineReader {
+        private final Reader in;
+        private final int maxLength;
+        private final StringBuilder line = new StringBuilder();
+        boolean oversized;
+
+        LineReader(Reader in, int maxLength) {
+            this.in = in;
+            this.maxLength = maxLength;
+        }
+
+        // next line without its terminator, or null at end of input
+        String next() throws IOException {
+            line.setLength(0);
+            oversized = false;
+            int c = in.read();
+            if (c == -1) {
+                return null;
+            }
+            for (; c != -1 && c != '\n'; c = in.read()) {
+                if (oversized) {
+                    continue;
+                }
+                if (line.length() == maxLength) {
+                    oversized = true;
+                    line.setLength(0);
+                    continue;
+                }
+                line.append((char) c);
+            }
+            if (!line.isEmpty() && line.charAt(line.length() - 1) == '\r') {
+                line.setLength(line.length() - 1);
+            }
+            return line.toString();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.transfer.service;
+
+import com.example.transfer.exception.ServiceUnavailableException;
+import com.example.transfer.exception.TooManyRequestsException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// Shared cap on createTransfer calls issued by batch and stream processing. Size max-in-flight to
+// the DB pool / ledger capacity; the fair semaphore queues waiters FIFO, and each batch only
+// queues per-batch items at a time so one large batch cannot starve the others.
+@Component
+public class TransferConcurrencyLimiter {
+
+    private final Semaphore permits;
+    private final int maxQueue;
+    private final long acquireTimeoutMs;
+    private final int perBatch;
+
+    public TransferConcurrencyLimiter(@Value("${app.transfer.concurrency.max-in-flight:10}") int maxInFlight,
+                                      @Value("${app.transfer.concurrency.max-queue:100}") int maxQueue,
+                                      @Value("${app.transfer.concurrency.acquire-timeout-ms:2000}") long acquireTimeoutMs,
+                                      @Value("${app.transfer.concurrency.per-batch:4}") int perBatch) {
+        this.permits = new Semaphore(maxInFlight, true);
+        this.maxQueue = maxQueue;
+        this.acquireTimeoutMs = acquireTimeoutMs;
+        this.perBatch = perBatch;
+    }
+
+    public void admit() {
+        if (permits.getQueueLength() >= maxQueue) {
+            throw new TooManyRequestsException("Transfer capacity exhausted, retry later");
+        }
+    }
+
+    public <T> T execute(Supplier<T> work) {
+        admit();
+        try {
+            if (!permits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new ServiceUnavailableException("Timed out waiting for transfer capacity");
+            }
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Interrupted waiting for transfer capacity");
+        }
+        try {
+            return work.get();
+        } finally {
+            permits.release();
+        }
+    }
+
+    public Semaphore newBatchSlots() {
+        return new Semaphore(perBatch, true);
+    }
+
+    public int queueDepth() {
+        return permits.getQueueLength();
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.transfer.service;
+
+import com.example.transfer.dto.TransferResponseDto;
+import com.example.transfer.entity.Transfer;
+import com.example.transfer.repository.TransferRepository;
+import com.example.transfer.repository.TransferStatusView;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+// Resolves many transfer ids in one request. Terminal transfers come from the status cache, the
+// rest from a single IN query:
+//   {"transfers":[{"transferId":..,"status":..},...],"missing":["id",...]}
+// Rows are bounded by the request size, so they are collected inside the read-only transaction and
+// written after it has closed; a slow client never holds a database connection.
+// Unknown ids are listed under "missing" instead of failing the whole lookup.
+@Service
+public class TransferLookupService {
+
+    private final TransferRepository transferRepository;
+    private final TransferStatusCache statusCache;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTx;
+
+    public TransferLookupService(TransferRepository transferRepository,
+                                 TransferStatusCache statusCache,
+                                 ObjectMapper objectMapper,
+                                 PlatformTransactionManager transactionManager) {
+        this.transferRepository = transferRepository;
+        this.statusCache = statusCache;
+        this.objectMapper = objectMapper;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+    }
+
+    public void write(List<String> transferIds, OutputStream out) throws IOException {
+        // deduplicated, in request order, so "missing" reads back like the request
+        Set<String> unresolved = new LinkedHashSet<>(transferIds);
+        List<TransferResponseDto> resolved = new ArrayList<>(unresolved.size());
+        for (String id : transferIds) {
+            TransferResponseDto cached = statusCache.get(id).orElse(null);
+            if (cached != null && unresolved.remove(id)) {
+                resolved.add(cached);
+            }
+        }
+        // ids that are not UUIDs cannot exist and simply stay unresolved
+        // spellings that differ only in case parse to the same UUID; each one is answered
+        Map<UUID, List<String>> requested = new HashMap<>();
+        for (String id : unresolved) {
+            Transfer.parseId(id).ifPresent(uuid -> requested.computeIfAbsent(uuid, k -> new ArrayList<>()).add(id));
+        }
+        if (!requested.isEmpty()) {
+            List<TransferStatusView> rows = readOnlyTx.execute(tx -> transferRepository.findStatusByIdIn(requested.keySet()));
+            for (TransferStatusView row : rows) {
+                TransferResponseDto dto = new TransferResponseDto(row.id().toString(), row.status().name());
+                statusCache.putIfTerminal(dto);
+                unresolved.removeAll(requested.get(row.id()));
+                resolved.add(dto);
+            }
+        }
+
+        try (JsonGenerator gen = objectMapper.createGenerator(out)) {
+            gen.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            gen.writeStartObject();
+            gen.writeArrayFieldStart("transfers");
+            for (TransferResponseDto dto : resolved) {
+                gen.writeObject(dto);
+            }
+            gen.writeEndArray();
+
+            gen.writeArrayFieldStart("missing");
+            for (String id : unresolved) {
+                gen.writeString(id);
+            }
+            gen.writeEndArray();
+            gen.writeEndObject();
+        }
+    }
+}
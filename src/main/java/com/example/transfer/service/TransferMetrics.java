@@ -0,0 +1,77 @@
+package com.example.transfer.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+@Component
+public class TransferMetrics {
+
+    public enum Stage {
+        IDEMPOTENCY_LOOKUP, MARKER_INSERT, TRANSFER_INSERT, LEDGER_CALL, FINALIZE, CLEANUP
+    }
+
+    private final Map<Stage, Timer> stageTimers = new EnumMap<>(Stage.class);
+    private final Counter replays;
+    private final Counter conflicts;
+    private final Counter fallbacks;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    public TransferMetrics(MeterRegistry registry) {
+        for (Stage stage : Stage.values()) {
+            stageTimers.put(stage, Timer.builder("transfer.stage")
+                    .description("Time spent in each stage of the transfer pipeline")
+                    .tag("stage", stage.name().toLowerCase(Locale.ROOT))
+                    .publishPercentileHistogram()
+                    .register(registry));
+        }
+        this.replays = Counter.builder("transfer.idempotent.replays")
+                .description("Requests answered from a stored idempotency result")
+                .register(registry);
+        this.conflicts = Counter.builder("transfer.idempotent.conflicts")
+                .description("Idempotency-Key reused with a different request body")
+                .register(registry);
+        this.fallbacks = Counter.builder("transfer.ledger.fallbacks")
+                .description("Ledger calls answered by the fallback")
+                .register(registry);
+        Gauge.builder("transfer.in.flight", inFlight, AtomicInteger::get)
+                .description("Transfers between reservation and finalize")
+                .register(registry);
+    }
+
+    public <T> T time(Stage stage, Supplier<T> work) {
+        return stageTimers.get(stage).record(work);
+    }
+
+    public void time(Stage stage, Runnable work) {
+        stageTimers.get(stage).record(work);
+    }
+
+    public void replay() {
+        replays.increment();
+    }
+
+    public void conflict() {
+        conflicts.increment();
+    }
+
+    public void fallback() {
+        fallbacks.increment();
+    }
+
+    public void transferStarted() {
+        inFlight.incrementAndGet();
+    }
+
+    public void transferFinished() {
+        inFlight.decrementAndGet();
+    }
+}
@@ -0,0 +1,187 @@
+package com.example.transfer.service;
+
+import com.example.transfer.entity.Transfer;
+import com.example.transfer.entity.TransferOutbox;
+import com.example.transfer.logging.StructuredEvent;
+import com.example.transfer.logging.StructuredEvents;
+import com.example.transfer.repository.TransferJdbcRepository;
+import com.example.transfer.repository.TransferOutboxRepository;
+import com.example.transfer.repository.TransferRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.event.Level;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Drains transfer_outbox to the ledger for transfers accepted with 202 in async mode. Each poll
+// leases up to batch-size due rows, so a transfer is only ever worked on by one dispatcher at a
+// time, and hands them to at most `workers` concurrent dispatches. Postings still go through
+// AccountLanes and the ledger micro-batcher, so per-account order and bulk calls apply here too.
+//
+// A dispatch that throws (lane full, ledger outage or open breaker, DB error) keeps its row and is
+// retried with jittered exponential backoff; a node that dies mid-dispatch loses its lease after
+// lease-ms. Only an answer from the ledger finalizes the transfer.
+//
+// app.transfer.async.enabled only gates intake. With it off the table is still checked every
+// lease-ms, so rows left from before the switch are finished here; recovery skips them.
+@Component
+public class TransferOutboxDispatcher {
+
+    private final TransferOutboxRepository outboxRepository;
+    private final TransferRepository transferRepository;
+    private final TransferJdbcRepository transferJdbcRepository;
+    private final TransferService transferService;
+    private final boolean enabled;
+    private final int batchSize;
+    private final int workers;
+    private final Duration lease;
+    private final long backoffMs;
+    private final long maxBackoffMs;
+
+    private final Counter retries;
+    private final StructuredEvent dispatchFailed;
+    private final AtomicLong lagSeconds = new AtomicLong();
+    // only touched by the scheduler thread
+    private long nextLeftoverCheckNanos = System.nanoTime();
+
+    public TransferOutboxDispatcher(TransferOutboxRepository outboxRepository,
+                                    TransferRepository transferRepository,
+                                    TransferJdbcRepository transferJdbcRepository,
+                                    TransferService transferService,
+                                    MeterRegistry meterRegistry,
+                                    StructuredEvents events,
+                                    @Value("${app.transfer.async.enabled:false}") boolean enabled,
+                                    @Value("${app.transfer.async.batch-size:100}") int batchSize,
+                                    @Value("${app.transfer.async.workers:8}") int workers,
+                                    @Value("${app.transfer.async.lease-ms:30000}") long leaseMs,
+                                    @Value("${app.transfer.async.backoff-ms:1000}") long backoffMs,
+                                    @Value("${app.transfer.async.max-backoff-ms:60000}") long maxBackoffMs) {
+        this.outboxRepository = outboxRepository;
+        this.transferRepository = transferRepository;
+        this.transferJdbcRepository = transferJdbcRepository;
+        this.transferService = transferService;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.workers = workers;
+        this.lease = Duration.ofMillis(leaseMs);
+        this.backoffMs = backoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+        this.retries = Counter.builder("transfer.outbox.retries")
+                .description("Outbox dispatches that failed and were rescheduled")
+                .register(meterRegistry);
+        this.dispatchFailed = events.event(TransferOutboxDispatcher.class, "outbox_dispatch_failed", Level.WARN);
+        Gauge.builder("transfer.outbox.lag", lagSeconds, AtomicLong::get)
+                .description("Age in seconds of the oldest transfer still waiting in the outbox")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(initialDelayString = "${app.transfer.async.poll-interval-ms:100}",
+            fixedDelayString = "${app.transfer.async.poll-interval-ms:100}")
+    public void drain() {
+        if (!enabled) {
+            long now = System.nanoTime();
+            if (now - nextLeftoverCheckNanos < 0) {
+                return;
+            }
+            nextLeftoverCheckNanos = now + lease.toNanos();
+        }
+        // keep going while polls come back full so a backlog drains without waiting for the next tick
+        int drained;
+        do {
+            drained = drainOnce();
+        } while (drained == batchSize);
+        updateLag();
+    }
+
+    int drainOnce() {
+        Instant now = Instant.now();
+        List<TransferOutbox> due = outboxRepository.findByNextAttemptAtLessThanEqualOrderByNextAttemptAt(now, Limit.of(batchSize));
+        if (due.isEmpty()) {
+            return 0;
+        }
+        List<TransferOutbox> claimed = transferJdbcRepository.claimOutbox(due, now.plus(lease));
+        Map<UUID, Transfer> transfers = transferRepository.findAllById(
+                        claimed.stream().map(TransferOutbox::getTransferId).toList()).stream()
+                .collect(Collectors.toMap(Transfer::getId, Function.identity()));
+
+        Queue<UUID> done = new ConcurrentLinkedQueue<>();
+        Semaphore slots = new Semaphore(workers);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (TransferOutbox row : claimed) {
+                Transfer transfer = transfers.get(row.getTransferId());
+                if (transfer == null || transfer.getStatus() != Transfer.Status.PENDING) {
+                    // finalized by recovery or another path already
+                    done.add(row.getTransferId());
+                    continue;
+                }
+                slots.acquire();
+                executor.submit(() -> {
+                    try {
+                        dispatch(transfer, row, done);
+                    } finally {
+                        slots.release();
+                    }
+                });
+            }
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+        if (!done.isEmpty()) {
+            transferJdbcRepository.deleteOutbox(List.copyOf(done));
+        }
+        return due.size();
+    }
+
+    private void dispatch(Transfer transfer, TransferOutbox row, Queue<UUID> done) {
+        try {
+            transferService.resumeQueued(transfer);
+            done.add(row.getTransferId());
+        } catch (Exception e) {
+            retries.increment();
+            long delay = backoff(row.getAttempts());
+            transferJdbcRepository.rescheduleOutbox(row.getTransferId(), Instant.now().plusMillis(delay));
+            if (dispatchFailed.enabled()) {
+                dispatchFailed.begin()
+                        .field("transferId", row.getTransferId().toString())
+                        .field("attempts", row.getAttempts())
+                        .field("retryInMs", delay)
+                        .field("errorType", e.getClass().getSimpleName())
+                        .field("message", e.getMessage())
+                        .log();
+            }
+        }
+    }
+
+    // full jitter: uniform in [0, min(max, base * 2^(attempts-1))]
+    private long backoff(int attempts) {
+        long ceiling = backoffMs << Math.min(Math.max(attempts - 1, 0), 20);
+        return ThreadLocalRandom.current().nextLong(Math.min(ceiling, maxBackoffMs) + 1);
+    }
+
+    private void updateLag() {
+        Instant now = Instant.now();
+        long lag = outboxRepository.findOldestCreatedAt()
+                .map(oldest -> Math.max(0, now.getEpochSecond() - oldest.getEpochSecond()))
+                .orElse(0L);
+        lagSeconds.set(lag);
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.transfer.service;
 
+import com.example.transfer.dto.BatchTransferRequestDto;
 import com.example.transfer.dto.LedgerTransferRequest;
 import com.example.transfer.dto.LedgerTransferResponse;
 import com.example.transfer.dto.TransferRequestDto;
@@ -7,140 +8,419 @@ import com.example.transfer.dto.TransferResponseDto;
 import com.example.transfer.entity.IdempotencyKey;
 import com.example.transfer.entity.Transfer;
 import com.example.transfer.exception.ConflictException;
+import com.example.transfer.exception.LedgerNotCalledException;
 import com.example.transfer.exception.NotFoundException;
+import com.example.transfer.exception.ServiceUnavailableException;
+import com.example.transfer.logging.StructuredEvent;
+import com.example.transfer.logging.StructuredEvents;
 import com.example.transfer.repository.IdempotencyKeyRepository;
+import com.example.transfer.repository.TransferJdbcRepository;
+import com.example.transfer.repository.TransferJdbcRepository.PendingTransfer;
 import com.example.transfer.repository.TransferRepository;
+import com.example.transfer.service.TransferMetrics.Stage;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.nio.charset.StandardCharsets;
-import java.security.MessageDigest;
+import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.Instant;
-import java.util.Base64;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 public class TransferService {
 
-    private static final Logger log = LoggerFactory.getLogger(TransferService.class);
     private final TransferRepository transferRepository;
     private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final TransferJdbcRepository transferJdbcRepository;
     private final ResilientLedgerClient resilientLedgerClient;
     private final ObjectMapper objectMapper;
+    private final IdempotencyCache idempotencyCache;
+    private final TransferStatusCache statusCache;
+    private final AccountLanes accountLanes;
+    private final AccountExposure accountExposure;
+    private final TransferMetrics metrics;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration awaitTimeout;
+    private final boolean async;
+    private final StructuredEvent transferResult;
 
-    private final int ttlHours;
+    private final ConcurrentHashMap<String, InFlight> inFlight = new ConcurrentHashMap<>();
+
+    private record InFlight(String requestHash, CompletableFuture<TransferResponseDto> result) {}
 
     public TransferService(TransferRepository transferRepository,
                            IdempotencyKeyRepository idempotencyKeyRepository,
+                           TransferJdbcRepository transferJdbcRepository,
                            ResilientLedgerClient resilientLedgerClient,
                            ObjectMapper objectMapper,
-                           @Value("${app.idempotency.ttl-hours:24}") int ttlHours) {
+                           IdempotencyCache idempotencyCache,
+                           TransferStatusCache statusCache,
+                           AccountLanes accountLanes,
+                           AccountExposure accountExposure,
+                           TransferMetrics metrics,
+                           PlatformTransactionManager transactionManager,
+                           StructuredEvents events,
+                           @Value("${app.idempotency.await-timeout-ms:5000}") long awaitTimeoutMs,
+                           @Value("${app.transfer.async.enabled:false}") boolean async) {
         this.transferRepository = transferRepository;
         this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.transferJdbcRepository = transferJdbcRepository;
         this.resilientLedgerClient = resilientLedgerClient;
         this.objectMapper = objectMapper;
-        this.ttlHours = ttlHours;
+        this.idempotencyCache = idempotencyCache;
+        this.statusCache = statusCache;
+        this.accountLanes = accountLanes;
+        this.accountExposure = accountExposure;
+        this.metrics = metrics;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.awaitTimeout = Duration.ofMillis(awaitTimeoutMs);
+        this.async = async;
+        this.transferResult = events.event(TransferService.class, "transfer_result", Level.INFO);
     }
 
     public TransferResponseDto getTransfer(String id) {
-        return transferRepository.findById(id)
-                .map(this::toDto)
+        TransferResponseDto cached = statusCache.get(id).orElse(null);
+        if (cached != null) {
+            return cached;
+        }
+        TransferResponseDto resp = Transfer.parseId(id)
+                .flatMap(transferRepository::findStatusById)
+                .map(v -> new TransferResponseDto(v.id().toString(), v.status().name()))
                 .orElseThrow(() -> new NotFoundException("transfer not found: " + id));
+        statusCache.putIfTerminal(resp);
+        return resp;
     }
 
-    @Transactional
     public TransferResponseDto createTransfer(TransferRequestDto request, String idempotencyKey) {
         String requestHash = hashRequest(request);
 
-        IdempotencyKey existing = idempotencyKeyRepository.findByKey(idempotencyKey).orElse(null);
+        IdempotencyCache.Entry cached = idempotencyCache.get(idempotencyKey).orElse(null);
+        if (cached != null) {
+            checkSameRequest(cached.requestHash(), requestHash, request);
+            metrics.replay();
+            return cached.response();
+        }
+
+        // single-flight: later arrivals for an in-flight key share the first caller's result
+        InFlight mine = new InFlight(requestHash, new CompletableFuture<>());
+        InFlight leader = inFlight.putIfAbsent(idempotencyKey, mine);
+        if (leader != null) {
+            checkSameRequest(leader.requestHash(), requestHash, request);
+            metrics.replay();
+            return join(leader.result());
+        }
+
+        try {
+            TransferResponseDto resp = createOnce(request, idempotencyKey, requestHash);
+            mine.result().complete(resp);
+            return resp;
+        } catch (RuntimeException e) {
+            mine.result().completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(idempotencyKey, mine);
+        }
+    }
+
+    private TransferResponseDto createOnce(TransferRequestDto request, String idempotencyKey, String requestHash) {
+        IdempotencyKey existing = metrics.time(Stage.IDEMPOTENCY_LOOKUP,
+                () -> idempotencyKeyRepository.findByKey(idempotencyKey)).orElse(null);
         if (existing != null) {
-            if (!existing.getRequestHash().equals(requestHash)) {
-                throw new ConflictException("Idempotency-Key reused with different request body");
+            checkSameRequest(existing.getRequestHash(), requestHash, request);
+            if (!existing.hasResponse()) {
+                return async ? accepted(existing.getTransferId()) : awaitCompletedMarker(request, idempotencyKey, requestHash);
             }
-            try {
-                return objectMapper.readValue(existing.getResponseJson(), TransferResponseDto.class);
-            } catch (Exception e) {
-                throw new RuntimeException(e);
+            metrics.replay();
+            return replay(existing);
+        }
+
+        accountExposure.check(request.fromAccountId(), request.amount());
+        if (async) {
+            accountLanes.admit(request.fromAccountId());
+            PendingTransfer pending = pending(request, idempotencyKey, requestHash);
+            // async mode: TransferOutboxDispatcher takes it to the ledger; clients poll GET /v1/transfers/{id}
+            return reserve(pending, true)
+                    ? accepted(pending.transferId())
+                    : awaitCompletedMarker(request, idempotencyKey, requestHash);
+        }
+        // The lane is taken before anything is written, so a refused or timed-out wait leaves no
+        // reservation behind and the same key can be retried straight away.
+        TransferResponseDto resp = accountLanes.execute(request.fromAccountId(), () -> {
+            PendingTransfer pending = pending(request, idempotencyKey, requestHash);
+            return reserve(pending, false) ? completeInLane(pending) : null;
+        });
+        // null: another node inserted the same key first (uk_idem_key); wait for its result, outside the lane
+        return resp != null ? resp : awaitCompletedMarker(request, idempotencyKey, requestHash);
+    }
+
+    // The placeholder idempotency row prevents concurrent duplicates; it carries the transferId so
+    // recovery can complete it without the original request. False if another writer holds the key.
+    private boolean reserve(PendingTransfer pending, boolean outbox) {
+        try {
+            insertPending(List.of(pending), outbox);
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            return false;
+        }
+    }
+
+    // caller holds the debit account's lane
+    private TransferResponseDto completeInLane(PendingTransfer pending) {
+        try {
+            TransferResponseDto resp = send(pending.transferId(), pending.fromAccountId(), pending.toAccountId(), pending.amount(), true);
+            idempotencyCache.put(pending.idempotencyKey(), pending.requestHash(), resp, pending.createdAt());
+            return resp;
+        } catch (LedgerNotCalledException e) {
+            // nothing reached the ledger: drop the reservation so a retry starts afresh instead of
+            // waiting on a marker only recovery would complete
+            release(pending);
+            throw e;
+        } catch (ServiceUnavailableException e) {
+            // an earlier attempt may have reached the ledger, so the reservation must stay; recovery
+            // finishes it and the client polls like an async one
+            return accepted(pending.transferId());
+        }
+    }
+
+    // Reserves markers and PENDING transfers for all fresh keys of a batch in one round trip per table.
+    // Returns a list aligned with items; null entries were not reserved (duplicate, replay, in flight,
+    // lost a race, or refused by the local balance check) and should go through createTransfer.
+    public List<PendingTransfer> reserveBatch(List<BatchTransferRequestDto.Item> items) {
+        List<PendingTransfer> reserved = new ArrayList<>(Collections.nCopies(items.size(), null));
+        Map<String, Integer> fresh = new LinkedHashMap<>();
+        for (int i = 0; i < items.size(); i++) {
+            BatchTransferRequestDto.Item item = items.get(i);
+            if (item.idempotencyKey() == null || item.transfer() == null
+                    || fresh.containsKey(item.idempotencyKey())
+                    || inFlight.containsKey(item.idempotencyKey())
+                    || idempotencyCache.get(item.idempotencyKey()).isPresent()
+                    || !accountExposure.covers(item.transfer().fromAccountId(), item.transfer().amount())) {
+                continue;
             }
+            fresh.put(item.idempotencyKey(), i);
+            reserved.set(i, pending(item.transfer(), item.idempotencyKey(), hashRequest(item.transfer())));
+        }
+        if (fresh.isEmpty()) {
+            return reserved;
+        }
+        List<String> existingKeys = metrics.time(Stage.IDEMPOTENCY_LOOKUP,
+                () -> idempotencyKeyRepository.findExistingKeys(fresh.keySet()));
+        for (String existing : existingKeys) {
+            reserved.set(fresh.remove(existing), null);
+        }
+
+        List<PendingTransfer> toInsert = reserved.stream().filter(Objects::nonNull).toList();
+        if (toInsert.isEmpty()) {
+            return reserved;
+        }
+        try {
+            insertPending(toInsert, false);
+            return reserved;
+        } catch (DataIntegrityViolationException e) {
+            // a concurrent writer took one of the keys; let every item resolve itself individually
+            return new ArrayList<>(Collections.nCopies(items.size(), null));
         }
+    }
 
-        // create placeholder idempotency row to prevent concurrent duplicates
-        IdempotencyKey marker = new IdempotencyKey();
-        marker.setKey(idempotencyKey);
-        marker.setRequestHash(requestHash);
-        marker = idempotencyKeyRepository.saveAndFlush(marker);
+    private void insertPending(List<PendingTransfer> pending, boolean outbox) {
+        transactionTemplate.executeWithoutResult(status -> {
+            metrics.time(Stage.MARKER_INSERT, () -> transferJdbcRepository.insertIdempotencyKeys(pending));
+            metrics.time(Stage.TRANSFER_INSERT, () -> {
+                transferJdbcRepository.insertTransfers(pending);
+                if (outbox) {
+                    transferJdbcRepository.insertOutbox(pending);
+                }
+            });
+        });
+    }
 
-        // Create transfer and call ledger in same transaction boundary for our own state;
-        // the ledger call itself is external and must be idempotent on its side based on transferId.
-        Transfer transfer = new Transfer();
-        transfer.setFromAccountId(request.fromAccountId());
-        transfer.setToAccountId(request.toAccountId());
-        transfer.setAmount(request.amount());
-        transfer = transferRepository.saveAndFlush(transfer);
-
-        LedgerTransferResponse ledgerResp = resilientLedgerClient.postTransfer(
-                new LedgerTransferRequest(request.fromAccountId(), request.toAccountId(), request.amount(), transfer.getId())
-        ).join();
-
-        if ("FAILURE".equalsIgnoreCase(ledgerResp.status())) {
-            transfer.setStatus(Transfer.Status.FAILED);
-            transfer.setMessage(ledgerResp.message());
-        } else {
-            transfer.setStatus(Transfer.Status.COMPLETED);
-            transfer.setMessage(ledgerResp.message());
-        }
-        transferRepository.save(transfer);
-
-        log.info("{}", Map.of(
-                "event", "transfer_result",
-                "transferId", transfer.getId(),
-                "status", transfer.getStatus(),
-                "fromAccountId", transfer.getFromAccountId(),
-                "toAccountId", transfer.getToAccountId(),
-                "amount", transfer.getAmount(),
-                "message", transfer.getMessage()
-        ));
-
-        TransferResponseDto resp = toDto(transfer);
-        persistResponse(marker, transfer.getId(), resp);
-        cleanupExpiredKeys();
+    private void release(PendingTransfer pending) {
+        transactionTemplate.executeWithoutResult(status -> {
+            transferJdbcRepository.deleteOpenIdempotencyKey(pending.transferId());
+            transferJdbcRepository.deletePendingTransfer(pending.transferId());
+        });
+    }
+
+    // no transaction or connection is held while the ledger call is outstanding
+    public TransferResponseDto completeReserved(PendingTransfer pending) {
+        TransferResponseDto resp = dispatch(pending.transferId(), pending.fromAccountId(), pending.toAccountId(), pending.amount(), true);
+        idempotencyCache.put(pending.idempotencyKey(), pending.requestHash(), resp, pending.createdAt());
         return resp;
     }
 
-    private void persistResponse(IdempotencyKey marker, String transferId, TransferResponseDto resp) {
+    // Re-drives a transfer left PENDING (e.g. by a crash between reserve and finalize).
+    // Safe to repeat: the ledger is idempotent on transferId and finalize only moves PENDING rows.
+    public TransferResponseDto resumePending(Transfer transfer) {
+        return dispatch(transfer.getId().toString(), transfer.getFromAccountId(), transfer.getToAccountId(), transfer.getAmount(), true);
+    }
+
+    // Like resumePending, for a transfer the outbox will retry: a ledger outage (open breaker,
+    // timeouts, 5xx) throws and leaves it PENDING instead of finalizing it as FAILED.
+    public TransferResponseDto resumeQueued(Transfer transfer) {
+        return dispatch(transfer.getId().toString(), transfer.getFromAccountId(), transfer.getToAccountId(), transfer.getAmount(), false);
+    }
+
+    private static TransferResponseDto accepted(String transferId) {
+        return new TransferResponseDto(transferId, Transfer.Status.PENDING.name());
+    }
+
+    private TransferResponseDto awaitCompletedMarker(TransferRequestDto request, String idempotencyKey, String requestHash) {
+        long deadline = System.nanoTime() + awaitTimeout.toNanos();
+        long sleepMs = 10;
+        while (true) {
+            IdempotencyKey row = idempotencyKeyRepository.findByKey(idempotencyKey).orElse(null);
+            if (row == null) {
+                // the other writer rolled back, so the key is free again
+                return createOnce(request, idempotencyKey, requestHash);
+            }
+            checkSameRequest(row.getRequestHash(), requestHash, request);
+            if (row.hasResponse()) {
+                metrics.replay();
+                return replay(row);
+            }
+            if (async) {
+                return accepted(row.getTransferId());
+            }
+            if (System.nanoTime() >= deadline) {
+                throw new ConflictException("Request with this Idempotency-Key is still in progress");
+            }
+            try {
+                Thread.sleep(sleepMs);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                throw new ConflictException("Request with this Idempotency-Key is still in progress");
+            }
+            sleepMs = Math.min(sleepMs * 2, 200);
+        }
+    }
+
+    private TransferResponseDto replay(IdempotencyKey existing) {
+        TransferResponseDto stored = readResponse(existing);
+        idempotencyCache.put(existing.getKey(), existing.getRequestHash(), stored, existing.getCreatedAt());
+        return stored;
+    }
+
+    private TransferResponseDto readResponse(IdempotencyKey existing) {
+        Byte version = existing.getResponseVersion();
+        if (version != null && version == IdempotencyKey.RESPONSE_TRANSFER_V1) {
+            return new TransferResponseDto(existing.getTransferId(), existing.getResponseStatus());
+        }
+        if (version != null) {
+            throw new IllegalStateException("Unknown idempotency response version " + version);
+        }
         try {
-            marker.setTransferId(transferId);
-            marker.setResponseJson(objectMapper.writeValueAsString(resp));
-            idempotencyKeyRepository.save(marker);
+            // row written before response_version existed
+            return objectMapper.readValue(existing.getResponseJson(), TransferResponseDto.class);
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
     }
 
-    private void cleanupExpiredKeys() {
-        Instant cutoff = Instant.now().minusSeconds(ttlHours * 3600L);
-        idempotencyKeyRepository.deleteByCreatedAtBefore(cutoff);
+    private static <T> T join(CompletableFuture<T> result) {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static PendingTransfer pending(TransferRequestDto request, String idempotencyKey, String requestHash) {
+        return new PendingTransfer(idempotencyKey, requestHash, Transfer.newId().toString(),
+                request.fromAccountId(), request.toAccountId(), request.amount(), Instant.now());
     }
 
-    private TransferResponseDto toDto(Transfer t) {
-        return new TransferResponseDto(
-                t.getId(),
-                t.getStatus().name()
-        );
+    // Transfers debiting the same account reach the ledger one at a time, in arrival order. Only for
+    // transfers reserved before taking the lane (batch items, recovery): if the lane refuses or times
+    // out, the transfer stays PENDING and recovery picks it up later.
+    private TransferResponseDto dispatch(String transferId, Long fromAccountId, Long toAccountId, BigDecimal amount,
+                                         boolean degrade) {
+        return accountLanes.execute(fromAccountId, () -> send(transferId, fromAccountId, toAccountId, amount, degrade));
     }
 
-    private String hashRequest(TransferRequestDto request) {
+    private TransferResponseDto send(String transferId, Long fromAccountId, Long toAccountId, BigDecimal amount,
+                                     boolean degrade) {
+        metrics.transferStarted();
         try {
-            MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
-            String string = request.fromAccountId() + "|" + request.toAccountId() + "|" + request.amount().toPlainString();
-            byte[] dig = messageDigest.digest(string.getBytes(StandardCharsets.UTF_8));
-            return Base64.getUrlEncoder().withoutPadding().encodeToString(dig);
-        } catch (Exception e) {
-            throw new RuntimeException(e);
+            return doDispatch(transferId, fromAccountId, toAccountId, amount, degrade);
+        } finally {
+            metrics.transferFinished();
         }
     }
+
+    // degrade false: ledger outages throw instead of coming back as a FAILURE response
+    private TransferResponseDto doDispatch(String transferId, Long fromAccountId, Long toAccountId, BigDecimal amount,
+                                           boolean degrade) {
+        // the ledger call itself is external and must be idempotent on its side based on transferId.
+        LedgerTransferRequest request = new LedgerTransferRequest(fromAccountId, toAccountId, amount, transferId);
+        LedgerTransferResponse ledgerResp;
+        accountExposure.begin(fromAccountId, toAccountId);
+        try {
+            ledgerResp = metrics.time(Stage.LEDGER_CALL, () -> join(degrade
+                    ? resilientLedgerClient.postTransfer(request)
+                    : resilientLedgerClient.postTransferOrRetryLater(request)));
+            accountExposure.record(fromAccountId, toAccountId, amount, ledgerResp);
+        } finally {
+            accountExposure.end(fromAccountId, toAccountId);
+        }
+
+        Transfer.Status status = "FAILURE".equalsIgnoreCase(ledgerResp.status())
+                ? Transfer.Status.FAILED
+                : Transfer.Status.COMPLETED;
+
+        TransferResponseDto resp = metrics.time(Stage.FINALIZE,
+                () -> transactionTemplate.execute(tx -> finalizeTransfer(transferId, status, ledgerResp.message())));
+        statusCache.putIfTerminal(resp);
+
+        if (transferResult.enabled()) {
+            transferResult.begin()
+                    .field("transferId", transferId)
+                    .field("status", resp.status())
+                    .field("fromAccountId", fromAccountId)
+                    .field("toAccountId", toAccountId)
+                    .field("amount", amount)
+                    .field("message", ledgerResp.message())
+                    .log();
+        }
+        return resp;
+    }
+
+    private TransferResponseDto finalizeTransfer(String transferId, Transfer.Status status, String message) {
+        int updated = transferJdbcRepository.finalizePending(transferId, status, message);
+        TransferResponseDto resp = updated == 1
+                ? new TransferResponseDto(transferId, status.name())
+                : getTransfer(transferId); // already finalized elsewhere (recovery or a concurrent node); keep its outcome
+        persistResponse(transferId, resp);
+        return resp;
+    }
+
+    private void checkSameRequest(String storedHash, String requestHash, TransferRequestDto request) {
+        if (!RequestHasher.matches(storedHash, requestHash, request)) {
+            metrics.conflict();
+            throw new ConflictException("Idempotency-Key reused with different request body");
+        }
+    }
+
+    private void persistResponse(String transferId, TransferResponseDto resp) {
+        transferJdbcRepository.completeIdempotencyKey(transferId, Transfer.Status.valueOf(resp.status()));
+    }
+
+    static String hashRequest(TransferRequestDto request) {
+        return RequestHasher.hash(request);
+    }
 }
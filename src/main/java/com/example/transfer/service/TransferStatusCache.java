@@ -0,0 +1,41 @@
+package com.example.transfer.service;
+
+import com.example.transfer.dto.TransferResponseDto;
+import com.example.transfer.entity.Transfer;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+
+// Terminal transfers never change, so GET /v1/transfers/{id} can serve them from memory.
+// Filled when a transfer is finalized and on read misses; PENDING is never cached.
+@Component
+public class TransferStatusCache {
+
+    private final Cache<String, TransferResponseDto> cache;
+
+    public TransferStatusCache(@Value("${app.transfer.status-cache.max-size:100000}") long maxSize,
+                               @Value("${app.transfer.status-cache.ttl-minutes:60}") long ttlMinutes) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterAccess(Duration.ofMinutes(ttlMinutes))
+                .build();
+    }
+
+    public Optional<TransferResponseDto> get(String transferId) {
+        return Optional.ofNullable(cache.getIfPresent(transferId));
+    }
+
+    public void putIfTerminal(TransferResponseDto response) {
+        if (isTerminal(response.status())) {
+            cache.put(response.transferId(), response);
+        }
+    }
+
+    static boolean isTerminal(String status) {
+        return Transfer.Status.COMPLETED.name().equals(status) || Transfer.Status.FAILED.name().equals(status);
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.transfer.config;
+
+import com.example.transfer.logging.StructuredEvents;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.env.StandardEnvironment;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VirtualThreadPinningMonitorTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void start_shouldNotOpenAJfrStream_outsideVirtualThreadMode() {
+        VirtualThreadPinningMonitor monitor = monitor(false);
+
+        monitor.start();
+
+        assertFalse(monitor.streaming());
+        monitor.stop();
+    }
+
+    @Test
+    void monitor_shouldCountPinnedVirtualThreads_andCloseTheStreamOnShutdown() throws Exception {
+        VirtualThreadPinningMonitor monitor = monitor(true);
+        monitor.start();
+        try {
+            assertTrue(monitor.streaming());
+
+            // JFR delivers events in chunks, so keep pinning until one has been reported
+            long deadline = System.nanoTime() + 10_000_000_000L;
+            while (pinnedCount() == 0 && System.nanoTime() < deadline) {
+                Thread.ofVirtual().start(VirtualThreadPinningMonitorTest::sleepWhilePinned).join();
+                Thread.sleep(100);
+            }
+            assertTrue(pinnedCount() > 0);
+        } finally {
+            monitor.stop();
+        }
+
+        assertFalse(monitor.streaming());
+    }
+
+    private VirtualThreadPinningMonitor monitor(boolean virtualThreads) {
+        return new VirtualThreadPinningMonitor(registry, new StructuredEvents(new StandardEnvironment()),
+                virtualThreads, true, 5);
+    }
+
+    private double pinnedCount() {
+        return registry.counter("jvm.threads.virtual.pinned").count();
+    }
+
+    // sleeping inside synchronized keeps the virtual thread mounted on its carrier
+    private static void sleepWhilePinned() {
+        Object monitor = new Object();
+        synchronized (monitor) {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
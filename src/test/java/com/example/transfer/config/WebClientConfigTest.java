@@ -0,0 +1,66 @@
+package com.example.transfer.config;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.Metrics;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(properties = {
+        "app.ledger.pool.max-connections=7",
+        "app.ledger.pool.pending-acquire-max-count=3"
+})
+class WebClientConfigTest {
+
+    private static HttpServer server;
+
+    @Autowired
+    private ConnectionProvider ledgerConnectionProvider;
+
+    @Autowired
+    @Qualifier("ledgerWebClient")
+    private WebClient ledgerWebClient;
+
+    @BeforeAll
+    static void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/ping", exchange -> {
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @AfterAll
+    static void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void ledgerPool_shouldTakeItsLimitsFromProperties_andPublishPoolMetrics() {
+        assertEquals(7, ledgerConnectionProvider.maxConnections());
+
+        // pool gauges are registered when the pool for a remote address is first used
+        ledgerWebClient.get()
+                .uri("http://localhost:" + server.getAddress().getPort() + "/ping")
+                .retrieve()
+                .toBodilessEntity()
+                .block(Duration.ofSeconds(5));
+
+        assertEquals(7.0, Metrics.globalRegistry.get("reactor.netty.connection.provider.max.connections")
+                .tag("name", "ledger").gauge().value());
+        assertEquals(3.0, Metrics.globalRegistry.get("reactor.netty.connection.provider.max.pending.connections")
+                .tag("name", "ledger").gauge().value());
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.transfer.entity;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UuidV7Test {
+
+    @Test
+    void next_shouldSetVersionVariantAndTimestamp() {
+        long now = 1_735_689_600_000L;
+        UUID id = UuidV7.next(now);
+
+        assertEquals(7, id.version());
+        assertEquals(2, id.variant());
+        assertEquals(now, id.getMostSignificantBits() >>> 16);
+    }
+
+    @Test
+    void next_shouldKeepVersionAndVariantBits_andRandomizeTheRest() {
+        long now = 1_735_689_600_000L;
+        Set<UUID> ids = new HashSet<>();
+        long randA = 0;
+        long randB = 0;
+        for (int i = 0; i < 1000; i++) {
+            UUID id = UuidV7.next(now);
+            assertEquals(0x7000L, id.getMostSignificantBits() & 0xF000L);
+            assertEquals(0x8000000000000000L, id.getLeastSignificantBits() & 0xC000000000000000L);
+            randA |= id.getMostSignificantBits() & 0x0FFFL;
+            randB |= id.getLeastSignificantBits() & 0x3FFFFFFFFFFFFFFFL;
+            ids.add(id);
+        }
+
+        assertEquals(1000, ids.size());
+        // every random bit was set at least once, so none is stuck at zero
+        assertEquals(0x0FFFL, randA);
+        assertEquals(0x3FFFFFFFFFFFFFFFL, randB);
+    }
+
+    @Test
+    void next_shouldSortByCreationMillisecond() {
+        UUID earlier = UuidV7.next(1_735_689_600_000L);
+        UUID later = UuidV7.next(1_735_689_600_001L);
+
+        assertTrue(UuidV7.compare(earlier, later) < 0);
+        assertTrue(earlier.toString().compareTo(later.toString()) < 0);
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.transfer.service;
+
+import com.example.transfer.dto.LedgerTransferResponse;
+import com.example.transfer.exception.InsufficientFundsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AccountExposureTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void check_shouldPassEverything_whenNoBalanceIsKnown() {
+        AccountExposure exposure = new AccountExposure(registry, true, 100, 60_000);
+
+        assertDoesNotThrow(() -> exposure.check(1L, new BigDecimal("1000000")));
+    }
+
+    @Test
+    void check_shouldRejectWith422_whenLedgerReportedBalanceCannotCoverAmount() {
+        AccountExposure exposure = new AccountExposure(registry, true, 100, 60_000);
+        exposure.record(1L, 2L, new BigDecimal("40"),
+                new LedgerTransferResponse("SUCCESS", "OK", new BigDecimal("60")));
+
+        assertDoesNotThrow(() -> exposure.check(1L, new BigDecimal("60")));
+        assertThrows(InsufficientFundsException.class, () -> exposure.check(1L, new BigDecimal("60.01")));
+        assertDoesNotThrow(() -> exposure.check(2L, new BigDecimal("60.01")));
+        assertEquals(1.0, registry.get("transfer.exposure.rejected").counter().count());
+    }
+
+    @Test
+    void record_shouldSubtractSuccessfulDebit_whenLedgerOmitsBalance() {
+        AccountExposure exposure = new AccountExposure(registry, true, 100, 60_000);
+        exposure.record(1L, 2L, new BigDecimal("10"),
+                new LedgerTransferResponse("SUCCESS", "OK", new BigDecimal("100")));
+
+        exposure.record(1L, 2L, new BigDecimal("30"), new LedgerTransferResponse("SUCCESS", "OK"));
+        exposure.record(1L, 2L, new BigDecimal("30"), new LedgerTransferResponse("FAILURE", "Ledger unavailable"));
+
+        assertTrue(exposure.covers(1L, new BigDecimal("70")));
+        assertFalse(exposure.covers(1L, new BigDecimal("71")));
+    }
+
+    @Test
+    void record_shouldDropCreditedAccountBalance_whenTransferPosts() {
+        AccountExposure exposure = new AccountExposure(registry, true, 100, 60_000);
+        exposure.record(2L, 3L, new BigDecimal("5"), new LedgerTransferResponse("SUCCESS", "OK", BigDecimal.ZERO));
+        assertFalse(exposure.covers(2L, new BigDecimal("50")));
+
+        exposure.record(1L, 2L, new BigDecimal("50"), new LedgerTransferResponse("SUCCESS", "OK", new BigDecimal("10")));
+
+        assertDoesNotThrow(() -> exposure.check(2L, new BigDecimal("50")));
+        assertFalse(exposure.covers(1L, new BigDecimal("50")));
+    }
+
+    @Test
+    void check_shouldNotReject_whileATransferTouchingTheAccountIsInFlight() {
+        AccountExposure exposure = new AccountExposure(registry, true, 100, 60_000);
+        exposure.record(2L, 3L, new BigDecimal("5"), new LedgerTransferResponse("SUCCESS", "OK", BigDecimal.ZERO));
+
+        // a credit to 2 is on its way to the ledger: its cached zero balance may already be stale
+        exposure.begin(1L, 2L);
+        assertDoesNotThrow(() -> exposure.check(2L, new BigDecimal("50")));
+        exposure.begin(2L, 4L);
+        exposure.end(1L, 2L);
+        assertTrue(exposure.covers(2L, new BigDecimal("50")));
+
+        exposure.end(2L, 4L);
+        assertFalse(exposure.covers(2L, new BigDecimal("50")));
+    }
+
+    @Test
+    void check_shouldForgetBalance_afterTtl() throws Exception {
+        AccountExposure exposure = new AccountExposure(registry, true, 100, 20);
+        exposure.record(1L, 2L, BigDecimal.ONE, new LedgerTransferResponse("SUCCESS", "OK", BigDecimal.ZERO));
+        assertFalse(exposure.covers(1L, BigDecimal.ONE));
+
+        Thread.sleep(50);
+
+        assertTrue(exposure.covers(1L, BigDecimal.ONE));
+    }
+
+    @Test
+    void check_shouldDoNothing_whenDisabled() {
+        AccountExposure exposure = new AccountExposure(registry, false, 100, 60_000);
+        exposure.record(1L, 2L, BigDecimal.ONE, new LedgerTransferResponse("SUCCESS", "OK", BigDecimal.ZERO));
+
+        assertDoesNotThrow(() -> exposure.check(1L, BigDecimal.TEN));
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.transfer.service;
+
+import com.example.transfer.dto.AccountTransferDto;
+import com.example.transfer.dto.AccountTransferPageDto;
+import com.example.transfer.entity.Transfer;
+import com.example.transfer.exception.BadRequestException;
+import com.example.transfer.repository.TransferHistoryView;
+import com.example.transfer.repository.TransferRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AccountHistoryServiceTest {
+
+    private static final Instant T0 = Instant.parse("2025-01-01T00:00:00Z");
+    private static final AccountHistoryService.Filter ALL = new AccountHistoryService.Filter(null, null, null);
+    private static final UUID NIL = new UUID(0, 0);
+    private static final UUID A = Transfer.newId();
+    private static final UUID B = Transfer.newId();
+    private static final UUID C = Transfer.newId();
+
+    private final TransferRepository transferRepository = mock(TransferRepository.class);
+    private final AccountHistoryService service = new AccountHistoryService(transferRepository, new ObjectMapper().findAndRegisterModules(), 200, 1000);
+
+    @Test
+    void page_shouldMergeBothSidesNewestFirst_andDropSelfTransferDuplicates() {
+        TransferHistoryView self = row(C, 7L, 7L, T0.plusSeconds(3));
+        when(transferRepository.findDebitsBefore(eq(7L), any(), any(), any(), eq(NIL), any()))
+                .thenReturn(List.of(self, row(A, 7L, 1L, T0.plusSeconds(1))));
+        when(transferRepository.findCreditsBefore(eq(7L), any(), any(), any(), eq(NIL), any()))
+                .thenReturn(List.of(self, row(B, 2L, 7L, T0.plusSeconds(2))));
+
+        AccountTransferPageDto page = service.page(7L, ALL, null, 2);
+
+        assertEquals(List.of(C.toString(), B.toString()), page.transfers().stream().map(AccountTransferDto::transferId).toList());
+
+        when(transferRepository.findDebitsBefore(eq(7L), any(), any(), eq(T0.plusSeconds(2)), eq(B), any()))
+                .thenReturn(List.of(row(A, 7L, 1L, T0.plusSeconds(1))));
+        when(transferRepository.findCreditsBefore(eq(7L), any(), any(), eq(T0.plusSeconds(2)), eq(B), any()))
+                .thenReturn(List.of());
+
+        AccountTransferPageDto next = service.page(7L, ALL, page.nextCursor(), 2);
+
+        assertEquals(List.of(A.toString()), next.transfers().stream().map(AccountTransferDto::transferId).toList());
+        assertNull(next.nextCursor());
+    }
+
+    @Test
+    void page_shouldRejectMalformedCursor() {
+        assertThrows(BadRequestException.class, () -> service.page(7L, ALL, "not-a-cursor", 10));
+    }
+
+    private static TransferHistoryView row(UUID id, Long from, Long to, Instant createdAt) {
+        return new TransferHistoryView(id, from, to, BigDecimal.TEN, Transfer.Status.COMPLETED, createdAt);
+    }
+}
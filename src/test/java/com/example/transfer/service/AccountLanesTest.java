@@ -0,0 +1,123 @@
+package com.example.transfer.service;
+
+import com.example.transfer.exception.ServiceUnavailableException;
+import com.example.transfer.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AccountLanesTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void execute_shouldRunOtherAccountsWhileOneAccountIsBusy() throws Exception {
+        AccountLanes lanes = new AccountLanes(registry, true, 10, 5000);
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            executor.submit(() -> lanes.execute(1L, () -> {
+                holding.countDown();
+                await(release);
+                return null;
+            }));
+            holding.await();
+
+            assertEquals("other", lanes.execute(2L, () -> "other"));
+            assertEquals(1.0, gauge("transfer.lanes.active"));
+            release.countDown();
+        }
+        assertEquals(0.0, gauge("transfer.lanes.active"));
+    }
+
+    @Test
+    void execute_shouldFailWith503_whenEarlierTransferOfSameAccountHoldsTheLane() throws Exception {
+        AccountLanes lanes = new AccountLanes(registry, true, 10, 50);
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            executor.submit(() -> lanes.execute(1L, () -> {
+                holding.countDown();
+                await(release);
+                return null;
+            }));
+            holding.await();
+
+            assertThrows(ServiceUnavailableException.class, () -> lanes.execute(1L, () -> "late"));
+            release.countDown();
+        }
+        assertEquals("ok", lanes.execute(1L, () -> "ok"));
+        assertEquals(0.0, gauge("transfer.lanes.active"));
+    }
+
+    @Test
+    void admit_shouldFailWith429_whenAccountLaneIsFull() throws Exception {
+        AccountLanes lanes = new AccountLanes(registry, true, 2, 5000);
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            executor.submit(() -> lanes.execute(1L, () -> {
+                holding.countDown();
+                await(release);
+                return null;
+            }));
+            holding.await();
+            executor.submit(() -> lanes.execute(1L, () -> null));
+            while (gauge("transfer.lanes.depth.max") < 2) {
+                Thread.onSpinWait();
+            }
+
+            assertThrows(TooManyRequestsException.class, () -> lanes.admit(1L));
+            assertThrows(TooManyRequestsException.class, () -> lanes.execute(1L, () -> null));
+            lanes.admit(2L);
+            assertEquals(2.0, registry.get("transfer.lane.rejected").counter().count());
+            release.countDown();
+        }
+    }
+
+    @Test
+    void execute_shouldRunSameAccountTransfersOneAtATime() throws Exception {
+        AccountLanes lanes = new AccountLanes(registry, true, 100, 5000);
+        int[] running = {0};
+        int[] maxRunning = {0};
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<?>[] futures = new Future<?>[20];
+            for (int i = 0; i < futures.length; i++) {
+                futures[i] = executor.submit(() -> lanes.execute(7L, () -> {
+                    // plain ints: the lane lock is the only thing guarding them
+                    maxRunning[0] = Math.max(maxRunning[0], ++running[0]);
+                    Thread.yield();
+                    running[0]--;
+                    return null;
+                }));
+            }
+            for (Future<?> f : futures) {
+                f.get();
+            }
+        }
+        assertEquals(1, maxRunning[0]);
+    }
+
+    private double gauge(String name) {
+        return registry.get(name).gauge().value();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.transfer.service;
+
+import com.example.transfer.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveLedgerLimiterTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void acquire_shouldRefuseWith503_whenLimitAndQueueAreFull() {
+        AdaptiveLedgerLimiter limiter = limiter(1, 0, 100);
+        limiter.acquire().block();
+
+        Exception ex = assertThrows(ServiceUnavailableException.class, () -> limiter.acquire().block());
+
+        assertTrue(ex.getMessage().contains("Ledger concurrency limit"));
+        assertEquals(1.0, registry.get("ledger.limiter.rejected").counter().count());
+    }
+
+    @Test
+    void acquire_shouldWaitInQueue_untilAPermitIsReleased() {
+        AdaptiveLedgerLimiter limiter = limiter(1, 1, 5000);
+        AdaptiveLedgerLimiter.Permit first = limiter.acquire().block();
+
+        CompletableFuture<AdaptiveLedgerLimiter.Permit> second = limiter.acquire().toFuture();
+        assertFalse(second.isDone());
+        assertEquals(1.0, registry.get("ledger.limiter.queue").gauge().value());
+
+        limiter.release(first, AdaptiveLedgerLimiter.Outcome.IGNORED);
+
+        assertTrue(second.isDone());
+        assertEquals(1.0, registry.get("ledger.limiter.in.flight").gauge().value());
+    }
+
+    @Test
+    void acquire_shouldGiveUpAfterMaxWait() {
+        AdaptiveLedgerLimiter limiter = limiter(1, 1, 20);
+        limiter.acquire().block();
+
+        Exception ex = assertThrows(RuntimeException.class, () -> limiter.acquire().block(Duration.ofSeconds(5)));
+
+        assertInstanceOf(ServiceUnavailableException.class, ex);
+        assertEquals(0.0, registry.get("ledger.limiter.queue").gauge().value());
+    }
+
+    @Test
+    void release_shouldCutLimit_whenCallsAreDropped() {
+        AdaptiveLedgerLimiter limiter = limiter(10, 0, 100);
+
+        limiter.release(limiter.acquire().block(), AdaptiveLedgerLimiter.Outcome.DROPPED);
+
+        assertEquals(9.0, limiter.limit(), 1e-9);
+    }
+
+    @Test
+    void run_shouldGrowLimit_whileFullyUsedAndLatencyIsSteady() {
+        AdaptiveLedgerLimiter limiter = limiter(4, 0, 100);
+
+        for (int round = 0; round < 20; round++) {
+            // fill the limit so the samples count as load
+            int permits = (int) limiter.limit();
+            AdaptiveLedgerLimiter.Permit[] held = new AdaptiveLedgerLimiter.Permit[permits];
+            for (int i = 0; i < permits; i++) {
+                held[i] = limiter.acquire().block();
+            }
+            for (AdaptiveLedgerLimiter.Permit permit : held) {
+                limiter.release(permit, AdaptiveLedgerLimiter.Outcome.SUCCESS);
+            }
+        }
+
+        assertTrue(limiter.limit() > 4, "limit should grow, was " + limiter.limit());
+        assertEquals(limiter.limit(), registry.get("ledger.limiter.limit").gauge().value());
+    }
+
+    @Test
+    void run_shouldPassThrough_whenDisabled() {
+        AdaptiveLedgerLimiter limiter = new AdaptiveLedgerLimiter(registry, false, 1, 1, 1, 0, 10, 0.2, 1.5);
+
+        assertEquals("a", limiter.run(Mono.just("a"), ex -> AdaptiveLedgerLimiter.Outcome.DROPPED).block());
+        assertEquals("b", limiter.run(Mono.just("b"), ex -> AdaptiveLedgerLimiter.Outcome.DROPPED).block());
+    }
+
+    private AdaptiveLedgerLimiter limiter(int initialLimit, int maxQueue, long maxWaitMs) {
+        return new AdaptiveLedgerLimiter(registry, true, initialLimit, 1, 1000, maxQueue, maxWaitMs, 0.2, 1.5);
+    }
+}
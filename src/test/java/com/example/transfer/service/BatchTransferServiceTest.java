@@ -0,0 +1,49 @@
+package com.example.transfer.service;
+
+import com.example.transfer.dto.BatchTransferRequestDto;
+import com.example.transfer.dto.BatchTransferResponseDto;
+import com.example.transfer.dto.TransferRequestDto;
+import com.example.transfer.dto.TransferResponseDto;
+import com.example.transfer.exception.ServiceUnavailableException;
+import com.example.transfer.repository.TransferJdbcRepository.PendingTransfer;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+
+class BatchTransferServiceTest {
+
+    @Test
+    void processBatch_shouldReportRefusedItemsWithTheirStatus_andReservedOnesAsPending() {
+        TransferRequestDto transfer = new TransferRequestDto(1L, 2L, BigDecimal.TEN);
+        BatchTransferRequestDto batch = new BatchTransferRequestDto(List.of(
+                new BatchTransferRequestDto.Item("k-reserved", transfer),
+                new BatchTransferRequestDto.Item("k-fresh", transfer)));
+        PendingTransfer reserved = new PendingTransfer("k-reserved", "hash", "tx-reserved", 1L, 2L, BigDecimal.TEN, Instant.now());
+
+        TransferService transferService = Mockito.mock(TransferService.class);
+        Mockito.when(transferService.reserveBatch(batch.items())).thenReturn(Arrays.asList(reserved, null));
+        ServiceUnavailableException refusal = new ServiceUnavailableException("Timed out waiting for earlier transfers of account 1");
+        Mockito.when(transferService.completeReserved(reserved)).thenThrow(refusal);
+        Mockito.when(transferService.createTransfer(any(), eq("k-fresh"))).thenThrow(refusal);
+
+        BatchTransferResponseDto response = new BatchTransferService(transferService,
+                new TransferConcurrencyLimiter(4, 10, 1000, 4)).processBatch(batch);
+
+        BatchTransferResponseDto.Result pending = response.results().get(0);
+        assertEquals(new TransferResponseDto("tx-reserved", "PENDING"), pending.response());
+        assertNull(pending.errorStatus());
+        BatchTransferResponseDto.Result refused = response.results().get(1);
+        assertEquals("k-fresh", refused.idempotencyKey());
+        assertEquals("REJECTED", refused.response().status());
+        assertEquals(503, refused.errorStatus());
+    }
+}
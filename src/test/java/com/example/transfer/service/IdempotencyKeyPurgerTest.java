@@ -0,0 +1,58 @@
+package com.example.transfer.service;
+
+import com.example.transfer.entity.IdempotencyKey;
+import com.example.transfer.repository.IdempotencyKeyRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+        "app.idempotency.purge.chunk-size=2",
+        "app.idempotency.purge.interval-ms=3600000"
+})
+class IdempotencyKeyPurgerTest {
+
+    @Autowired
+    private IdempotencyKeyPurger purger;
+
+    @Autowired
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void purgeExpired_shouldDeleteExpiredKeysInChunksAndKeepFreshOnes() {
+        Instant expired = Instant.now().minus(Duration.ofHours(48));
+        for (int i = 0; i < 5; i++) {
+            save("purge-expired-" + i, expired);
+        }
+        save("purge-fresh", Instant.now());
+
+        double before = meterRegistry.counter("idempotency.purge.rows").count();
+        purger.purgeExpired();
+
+        for (int i = 0; i < 5; i++) {
+            assertFalse(idempotencyKeyRepository.findByKey("purge-expired-" + i).isPresent());
+        }
+        assertTrue(idempotencyKeyRepository.findByKey("purge-fresh").isPresent());
+        assertTrue(meterRegistry.counter("idempotency.purge.rows").count() - before >= 5);
+        assertEquals(0.0, meterRegistry.get("idempotency.purge.lag").gauge().value());
+    }
+
+    private void save(String key, Instant createdAt) {
+        IdempotencyKey idem = new IdempotencyKey();
+        idem.setKey(key);
+        idem.setRequestHash("hash");
+        idem.setCreatedAt(createdAt);
+        idempotencyKeyRepository.save(idem);
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.transfer.service;
+
+import com.example.transfer.dto.LedgerTransferRequest;
+import com.example.transfer.dto.LedgerTransferResponse;
+import com.example.transfer.logging.StructuredEvents;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LedgerBatchDispatcherTest {
+
+    private static final int TRANSFERS = 10;
+
+    @Test
+    void submit_shouldCoalesceIntoBulkCalls_whenLedgerSupportsBulk() throws Exception {
+        try (StubLedgerServer ledger = new StubLedgerServer(true)) {
+            LedgerBatchDispatcher dispatcher = dispatcher(ledger);
+
+            submitAllAndAssertFanOut(dispatcher);
+
+            assertEquals(0, ledger.singleCalls.get());
+            assertTrue(ledger.bulkCalls.get() >= 1 && ledger.bulkCalls.get() < TRANSFERS,
+                    "expected coalesced bulk calls, saw " + ledger.bulkCalls.get());
+            dispatcher.shutdown();
+        }
+    }
+
+    @Test
+    void submit_shouldFallBackToSingleCalls_whenLedgerHasNoBulkEndpoint() throws Exception {
+        try (StubLedgerServer ledger = new StubLedgerServer(false)) {
+            LedgerBatchDispatcher dispatcher = dispatcher(ledger);
+
+            submitAllAndAssertFanOut(dispatcher);
+
+            assertEquals(0, ledger.bulkCalls.get());
+            assertEquals(TRANSFERS, ledger.singleCalls.get());
+            dispatcher.shutdown();
+        }
+    }
+
+    @Test
+    void submit_shouldAcceptConcurrentProducers() throws Exception {
+        try (StubLedgerServer ledger = new StubLedgerServer(true);
+             ExecutorService producers = Executors.newFixedThreadPool(TRANSFERS)) {
+            LedgerBatchDispatcher dispatcher = dispatcher(ledger);
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<LedgerTransferResponse>> results = new ArrayList<>();
+            for (int i = 0; i < TRANSFERS; i++) {
+                String ref = "tx-" + i;
+                results.add(producers.submit(() -> {
+                    start.await();
+                    return dispatcher.submit(new LedgerTransferRequest(1L, 2L, BigDecimal.ONE, ref)).toFuture().join();
+                }));
+            }
+            start.countDown();
+
+            for (int i = 0; i < TRANSFERS; i++) {
+                LedgerTransferResponse resp = results.get(i).get();
+                assertEquals("SUCCESS", resp.status());
+                assertEquals("posted tx-" + i, resp.message());
+            }
+            dispatcher.shutdown();
+        }
+    }
+
+    private static LedgerBatchDispatcher dispatcher(StubLedgerServer ledger) {
+        LedgerClient client = new LedgerClient(WebClient.builder().baseUrl(ledger.baseUrl()).build());
+        return new LedgerBatchDispatcher(client, new StructuredEvents(new StandardEnvironment()), true, TRANSFERS, 100, 300000);
+    }
+
+    private static void submitAllAndAssertFanOut(LedgerBatchDispatcher dispatcher) {
+        List<CompletableFuture<LedgerTransferResponse>> futures = new ArrayList<>();
+        for (int i = 0; i < TRANSFERS; i++) {
+            futures.add(dispatcher.submit(new LedgerTransferRequest(1L, 2L, BigDecimal.ONE, "tx-" + i)).toFuture());
+        }
+        for (int i = 0; i < TRANSFERS; i++) {
+            LedgerTransferResponse resp = futures.get(i).join();
+            assertEquals("SUCCESS", resp.status());
+            assertEquals("posted tx-" + i, resp.message());
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.transfer.service;
+
+import com.example.transfer.dto.TransferRequestDto;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RequestHasherTest {
+
+    private final TransferRequestDto request = new TransferRequestDto(1L, 2L, new BigDecimal("100.25"));
+
+    @Test
+    void hash_isStableAndVersioned() {
+        String hash = RequestHasher.hash(request);
+
+        assertTrue(hash.startsWith(RequestHasher.V2_PREFIX));
+        assertEquals(hash, RequestHasher.hash(new TransferRequestDto(1L, 2L, new BigDecimal("100.25"))));
+    }
+
+    @Test
+    void hash_distinguishesAccountsScaleAndLargeAmounts() {
+        String hash = RequestHasher.hash(request);
+
+        assertNotEquals(hash, RequestHasher.hash(new TransferRequestDto(2L, 1L, new BigDecimal("100.25"))));
+        assertNotEquals(hash, RequestHasher.hash(new TransferRequestDto(1L, 2L, new BigDecimal("100.250"))));
+        assertNotEquals(
+                RequestHasher.hash(new TransferRequestDto(1L, 2L, new BigDecimal("123456789012345678901234.5"))),
+                RequestHasher.hash(new TransferRequestDto(1L, 2L, new BigDecimal("123456789012345678901234.6"))));
+    }
+
+    @Test
+    void matches_acceptsLegacyHashOfSameRequestOnly() {
+        String legacy = RequestHasher.legacyHash(request);
+        String current = RequestHasher.hash(request);
+
+        assertTrue(RequestHasher.matches(legacy, current, request));
+        assertFalse(RequestHasher.matches(legacy, RequestHasher.hash(new TransferRequestDto(1L, 2L, BigDecimal.TEN)),
+                new TransferRequestDto(1L, 2L, BigDecimal.TEN)));
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.transfer.service;
+
+import com.example.transfer.dto.LedgerTransferRequest;
+import com.example.transfer.dto.LedgerTransferResponse;
+import com.example.transfer.logging.StructuredEvents;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.retry.RetryRegistry;
+import io.github.resilience4j.timelimiter.TimeLimiterConfig;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.core.env.StandardEnvironment;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResilientLedgerClientLoadTest {
+
+    @Test
+    void inFlightLedgerCallsAreNotCappedByCommonPoolParallelism() {
+        int parallelism = ForkJoinPool.getCommonPoolParallelism();
+        int calls = parallelism * 4 + 16;
+
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+
+        LedgerClient ledgerClient = Mockito.mock(LedgerClient.class);
+        Mockito.when(ledgerClient.postTransfer(Mockito.any())).thenAnswer(inv ->
+                Mono.delay(Duration.ofMillis(300))
+                        .doOnSubscribe(s -> maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max))
+                        .doFinally(s -> inFlight.decrementAndGet())
+                        .map(t -> new LedgerTransferResponse("SUCCESS", "OK")));
+
+        ResilientLedgerClient client = new ResilientLedgerClient(
+                new LedgerBatchDispatcher(ledgerClient, new StructuredEvents(new StandardEnvironment()), false, 20, 5, 300000),
+                CircuitBreakerRegistry.ofDefaults(),
+                TimeLimiterRegistry.of(TimeLimiterConfig.custom().timeoutDuration(Duration.ofSeconds(5)).build()),
+                RetryRegistry.ofDefaults(),
+                new AdaptiveLedgerLimiter(new SimpleMeterRegistry(), false, 20, 2, 200, 50, 100, 0.2, 1.5),
+                new LedgerRetryBudget(new SimpleMeterRegistry(), 0.1, 1, 20),
+                new LedgerHedgePolicy(new SimpleMeterRegistry(), false, 0.95, 1024, 100, 10),
+                new TransferMetrics(new SimpleMeterRegistry()),
+                new StructuredEvents(new StandardEnvironment()));
+
+        List<CompletableFuture<LedgerTransferResponse>> futures = new ArrayList<>();
+        for (int i = 0; i < calls; i++) {
+            futures.add(client.postTransfer(
+                    new LedgerTransferRequest(1L, 2L, BigDecimal.TEN, "tx-" + i)));
+        }
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+
+        futures.forEach(f -> assertEquals("SUCCESS", f.join().status()));
+        assertTrue(maxInFlight.get() > parallelism,
+                "expected more than " + parallelism + " concurrent ledger calls, saw " + maxInFlight.get());
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.transfer.service;
+
+import com.example.transfer.dto.LedgerTransferRequest;
+import com.example.transfer.dto.LedgerTransferResponse;
+import com.example.transfer.exception.LedgerNotCalledException;
+import com.example.transfer.logging.StructuredEvents;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.retry.RetryConfig;
+import io.github.resilience4j.retry.RetryRegistry;
+import io.github.resilience4j.timelimiter.TimeLimiterConfig;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResilientLedgerClientRetryTest {
+
+    private static final LedgerTransferRequest REQUEST = new LedgerTransferRequest(1L, 2L, BigDecimal.TEN, "tx-1");
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final LedgerClient ledgerClient = Mockito.mock(LedgerClient.class);
+
+    @Test
+    void postTransfer_shouldRetryTransient5xx_andSucceed() {
+        AtomicInteger calls = new AtomicInteger();
+        Mockito.when(ledgerClient.postTransfer(Mockito.any())).thenAnswer(inv -> Mono.defer(() ->
+                calls.incrementAndGet() == 1
+                        ? Mono.error(WebClientResponseException.create(HttpStatus.BAD_GATEWAY.value(), "Bad Gateway", HttpHeaders.EMPTY, new byte[0], null))
+                        : Mono.just(new LedgerTransferResponse("SUCCESS", "OK"))));
+
+        LedgerTransferResponse resp = client(new LedgerRetryBudget(registry, 0.1, 0, 10), hedging(false))
+                .postTransfer(REQUEST).join();
+
+        assertEquals("SUCCESS", resp.status());
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void postTransfer_shouldNotRetry4xx() {
+        AtomicInteger calls = new AtomicInteger();
+        Mockito.when(ledgerClient.postTransfer(Mockito.any())).thenAnswer(inv -> Mono.defer(() -> {
+            calls.incrementAndGet();
+            return Mono.error(WebClientResponseException.create(HttpStatus.BAD_REQUEST.value(), "Bad Request", HttpHeaders.EMPTY, new byte[0], null));
+        }));
+
+        LedgerTransferResponse resp = client(new LedgerRetryBudget(registry, 0.1, 0, 10), hedging(false))
+                .postTransfer(REQUEST).join();
+
+        assertEquals("FAILURE", resp.status());
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void postTransfer_shouldStopRetrying_whenBudgetIsSpent() {
+        AtomicInteger calls = new AtomicInteger();
+        Mockito.when(ledgerClient.postTransfer(Mockito.any())).thenAnswer(inv -> Mono.defer(() -> {
+            calls.incrementAndGet();
+            return Mono.error(WebClientResponseException.create(HttpStatus.SERVICE_UNAVAILABLE.value(), "Unavailable", HttpHeaders.EMPTY, new byte[0], null));
+        }));
+        LedgerRetryBudget budget = new LedgerRetryBudget(registry, 0.0, 0, 1);
+
+        ResilientLedgerClient client = client(budget, hedging(false));
+        assertEquals("FAILURE", client.postTransfer(REQUEST).join().status());
+        assertEquals("FAILURE", client.postTransfer(REQUEST).join().status());
+
+        // one token: the first call gets a single retry, the second none
+        assertEquals(3, calls.get());
+        assertTrue(registry.get("ledger.retry.budget.exhausted").counter().count() >= 1);
+    }
+
+    @Test
+    void postTransfer_shouldNotSpendToken_onTheLastAttempt() {
+        AtomicInteger calls = new AtomicInteger();
+        Mockito.when(ledgerClient.postTransfer(Mockito.any())).thenAnswer(inv -> Mono.defer(() -> {
+            calls.incrementAndGet();
+            return Mono.error(WebClientResponseException.create(HttpStatus.SERVICE_UNAVAILABLE.value(), "Unavailable", HttpHeaders.EMPTY, new byte[0], null));
+        }));
+        LedgerRetryBudget budget = new LedgerRetryBudget(registry, 0.0, 0, 5);
+
+        LedgerTransferResponse resp = client(budget, hedging(false)).postTransfer(REQUEST).join();
+
+        // three attempts, but only the two retries are paid for
+        assertEquals("FAILURE", resp.status());
+        assertEquals("Ledger unavailable: ServiceUnavailable", resp.message());
+        assertEquals(3, calls.get());
+        assertEquals(3.0, registry.get("ledger.retry.budget.tokens").gauge().value());
+        assertEquals(0.0, registry.get("ledger.retry.budget.exhausted").counter().count());
+    }
+
+    @Test
+    void postTransfer_shouldReportLedgerNotCalled_whenLimiterRefusesTheFirstAttempt() {
+        AdaptiveLedgerLimiter limiter = new AdaptiveLedgerLimiter(registry, true, 1, 1, 1, 0, 100, 0.2, 1.5);
+        limiter.acquire().block();
+
+        CompletionException ex = assertThrows(CompletionException.class, () ->
+                client(new LedgerRetryBudget(registry, 0.1, 0, 10), hedging(false), limiter).postTransfer(REQUEST).join());
+
+        assertInstanceOf(LedgerNotCalledException.class, ex.getCause());
+        Mockito.verifyNoInteractions(ledgerClient);
+    }
+
+    @Test
+    void postTransfer_shouldHedgeSlowCall_andTakeTheFirstAnswer() {
+        AtomicInteger calls = new AtomicInteger();
+        Mockito.when(ledgerClient.postTransfer(Mockito.any())).thenAnswer(inv -> Mono.defer(() ->
+                calls.incrementAndGet() == 1
+                        ? Mono.delay(Duration.ofSeconds(2)).map(t -> new LedgerTransferResponse("SUCCESS", "slow"))
+                        : Mono.just(new LedgerTransferResponse("SUCCESS", "hedge"))));
+        LedgerHedgePolicy hedging = hedging(true);
+        hedging.record(Duration.ofMillis(20).toNanos());
+        assertFalse(hedging.delay().isEmpty());
+
+        long start = System.nanoTime();
+        LedgerTransferResponse resp = client(new LedgerRetryBudget(registry, 0.1, 0, 10), hedging)
+                .postTransfer(REQUEST).join();
+
+        assertEquals("hedge", resp.message());
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).compareTo(Duration.ofSeconds(1)) < 0);
+        assertEquals(1.0, registry.get("ledger.hedges").counter().count());
+    }
+
+    @Test
+    void postTransfer_shouldTakeTheHedgesAnswer_whenPrimaryFailsWhileHedgeIsInFlight() {
+        AtomicInteger calls = new AtomicInteger();
+        Mockito.when(ledgerClient.postTransfer(Mockito.any())).thenAnswer(inv -> Mono.defer(() ->
+                calls.incrementAndGet() == 1
+                        ? Mono.delay(Duration.ofMillis(300)).then(Mono.error(WebClientResponseException.create(
+                                HttpStatus.BAD_REQUEST.value(), "Bad Request", HttpHeaders.EMPTY, new byte[0], null)))
+                        : Mono.delay(Duration.ofMillis(500)).map(t -> new LedgerTransferResponse("SUCCESS", "hedge"))));
+        LedgerHedgePolicy hedging = hedging(true);
+        hedging.record(Duration.ofMillis(20).toNanos());
+
+        LedgerTransferResponse resp = client(new LedgerRetryBudget(registry, 0.1, 0, 10), hedging)
+                .postTransfer(REQUEST).join();
+
+        assertEquals("SUCCESS", resp.status());
+        assertEquals("hedge", resp.message());
+        assertEquals(2, calls.get());
+    }
+
+    private LedgerHedgePolicy hedging(boolean enabled) {
+        return new LedgerHedgePolicy(registry, enabled, 0.95, 16, 1, 10);
+    }
+
+    private ResilientLedgerClient client(LedgerRetryBudget budget, LedgerHedgePolicy hedging) {
+        return client(budget, hedging, new AdaptiveLedgerLimiter(registry, false, 20, 2, 200, 50, 100, 0.2, 1.5));
+    }
+
+    private ResilientLedgerClient client(LedgerRetryBudget budget, LedgerHedgePolicy hedging, AdaptiveLedgerLimiter limiter) {
+        return new ResilientLedgerClient(
+                new LedgerBatchDispatcher(ledgerClient, new StructuredEvents(new StandardEnvironment()), false, 20, 5, 300000),
+                CircuitBreakerRegistry.ofDefaults(),
+                TimeLimiterRegistry.of(TimeLimiterConfig.custom().timeoutDuration(Duration.ofSeconds(5)).build()),
+                RetryRegistry.of(RetryConfig.custom().maxAttempts(3).waitDuration(Duration.ofMillis(1)).build()),
+                limiter,
+                budget,
+                hedging,
+                new TransferMetrics(registry),
+                new StructuredEvents(new StandardEnvironment()));
+    }
+}
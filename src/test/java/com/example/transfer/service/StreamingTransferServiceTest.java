@@ -0,0 +1,149 @@
+package com.example.transfer.service;
+
+import com.example.transfer.dto.BatchTransferResponseDto;
+import com.example.transfer.dto.TransferResponseDto;
+import com.example.transfer.exception.InsufficientFundsException;
+import com.example.transfer.exception.TooManyRequestsException;
+import com.example.transfer.logging.StructuredEvents;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+
+class StreamingTransferServiceTest {
+
+    private static final int ITEMS = 200;
+    private static final int MAX_CONCURRENCY = 4;
+    private static final int MAX_LINE_LENGTH = 1024;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void process_shouldStreamOneResultPerLine_withBoundedConcurrency() throws Exception {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+
+        TransferService transferService = Mockito.mock(TransferService.class);
+        Mockito.when(transferService.createTransfer(any(), anyString())).thenAnswer(inv -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            Thread.sleep(2);
+            inFlight.decrementAndGet();
+            return new TransferResponseDto("tx-" + inv.getArgument(1), "COMPLETED");
+        });
+
+        StreamingTransferService service = new StreamingTransferService(transferService,
+                new TransferConcurrencyLimiter(MAX_CONCURRENCY, ITEMS, 5000, MAX_CONCURRENCY),
+                Validation.buildDefaultValidatorFactory().getValidator(), objectMapper,
+                new StructuredEvents(new StandardEnvironment()), MAX_CONCURRENCY, MAX_LINE_LENGTH);
+
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < ITEMS; i++) {
+            input.append("{\"idempotencyKey\":\"k-").append(i)
+                    .append("\",\"transfer\":{\"fromAccountId\":1,\"toAccountId\":2,\"amount\":10}}\n");
+        }
+        input.append("{\"idempotencyKey\":\"k-invalid\",\"transfer\":{\"fromAccountId\":1,\"toAccountId\":2,\"amount\":0}}\n");
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.process(new ByteArrayInputStream(input.toString().getBytes(StandardCharsets.UTF_8)), out);
+
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals(ITEMS + 1, lines.size());
+
+        Map<String, BatchTransferResponseDto.Result> byKey = lines.stream()
+                .map(this::parse)
+                .collect(Collectors.toMap(BatchTransferResponseDto.Result::idempotencyKey, Function.identity()));
+        assertEquals("COMPLETED", byKey.get("k-0").response().status());
+        assertEquals("FAILED", byKey.get("k-invalid").response().status());
+        assertTrue(maxInFlight.get() <= MAX_CONCURRENCY, "saw " + maxInFlight.get() + " concurrent transfers");
+    }
+
+    @Test
+    void process_shouldReportMalformedLinesAsFailed_andKeepReading() throws Exception {
+        TransferService transferService = Mockito.mock(TransferService.class);
+        Mockito.when(transferService.createTransfer(any(), anyString()))
+                .thenAnswer(inv -> new TransferResponseDto("tx-" + inv.getArgument(1), "COMPLETED"));
+
+        StreamingTransferService service = new StreamingTransferService(transferService,
+                new TransferConcurrencyLimiter(MAX_CONCURRENCY, ITEMS, 5000, MAX_CONCURRENCY),
+                Validation.buildDefaultValidatorFactory().getValidator(), objectMapper,
+                new StructuredEvents(new StandardEnvironment()), MAX_CONCURRENCY, MAX_LINE_LENGTH);
+
+        String input = ""
+                + "{\"idempotencyKey\":\"k-before\",\"transfer\":{\"fromAccountId\":1,\"toAccountId\":2,\"amount\":10}}\n"
+                + "{\"idempotencyKey\":\"k-broken\",\"transfer\":{\"fromAccountId\":1,\n"
+                + "{\"idempotencyKey\":\"k-mistyped\",\"transfer\":{\"fromAccountId\":\"one\",\"toAccountId\":2,\"amount\":10}}\n"
+                + "{\"idempotencyKey\":\"k-after\",\"transfer\":{\"fromAccountId\":1,\"toAccountId\":2,\"amount\":10}}\n";
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.process(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), out);
+
+        Map<String, BatchTransferResponseDto.Result> byKey = out.toString(StandardCharsets.UTF_8).lines()
+                .map(this::parse)
+                .collect(Collectors.toMap(r -> String.valueOf(r.idempotencyKey()), Function.identity()));
+        assertEquals(4, byKey.size());
+        assertEquals("COMPLETED", byKey.get("k-before").response().status());
+        assertEquals("FAILED", byKey.get("null").response().status());
+        assertEquals("FAILED", byKey.get("k-mistyped").response().status());
+        assertEquals("COMPLETED", byKey.get("k-after").response().status());
+    }
+
+    @Test
+    void process_shouldReportRefusalsWithTheirStatus_andSkipOversizedLines() throws Exception {
+        TransferService transferService = Mockito.mock(TransferService.class);
+        Mockito.when(transferService.createTransfer(any(), Mockito.eq("k-busy")))
+                .thenThrow(new TooManyRequestsException("Too many transfers in progress for account 1"));
+        Mockito.when(transferService.createTransfer(any(), Mockito.eq("k-poor")))
+                .thenThrow(new InsufficientFundsException("Insufficient funds in account 1"));
+        Mockito.when(transferService.createTransfer(any(), Mockito.eq("k-ok")))
+                .thenReturn(new TransferResponseDto("tx-ok", "COMPLETED"));
+
+        StreamingTransferService service = new StreamingTransferService(transferService,
+                new TransferConcurrencyLimiter(MAX_CONCURRENCY, ITEMS, 5000, MAX_CONCURRENCY),
+                Validation.buildDefaultValidatorFactory().getValidator(), objectMapper,
+                new StructuredEvents(new StandardEnvironment()), MAX_CONCURRENCY, MAX_LINE_LENGTH);
+
+        String transfer = "\"transfer\":{\"fromAccountId\":1,\"toAccountId\":2,\"amount\":10}}\n";
+        String input = "{\"idempotencyKey\":\"k-busy\"," + transfer
+                + "{\"idempotencyKey\":\"k-huge\",\"pad\":\"" + "x".repeat(MAX_LINE_LENGTH * 4) + "\"," + transfer
+                + "{\"idempotencyKey\":\"k-poor\"," + transfer
+                + "{\"idempotencyKey\":\"k-ok\"," + transfer;
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.process(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), out);
+
+        Map<String, BatchTransferResponseDto.Result> byKey = out.toString(StandardCharsets.UTF_8).lines()
+                .map(this::parse)
+                .collect(Collectors.toMap(r -> String.valueOf(r.idempotencyKey()), Function.identity()));
+        assertEquals(4, byKey.size());
+        assertEquals("REJECTED", byKey.get("k-busy").response().status());
+        assertEquals(429, byKey.get("k-busy").errorStatus());
+        assertEquals(413, byKey.get("null").errorStatus());
+        assertEquals(422, byKey.get("k-poor").errorStatus());
+        assertEquals("COMPLETED", byKey.get("k-ok").response().status());
+        assertNull(byKey.get("k-ok").errorStatus());
+    }
+
+    private BatchTransferResponseDto.Result parse(String line) {
+        try {
+            return objectMapper.readValue(line, BatchTransferResponseDto.Result.class);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.transfer.service;
+
+import com.example.transfer.dto.LedgerBatchTransferRequest;
+import com.example.transfer.dto.LedgerBatchTransferResponse;
+import com.example.transfer.dto.LedgerTransferRequest;
+import com.example.transfer.dto.LedgerTransferResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Minimal local ledger for tests: single posting always, bulk posting only when enabled.
+class StubLedgerServer implements AutoCloseable {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final HttpServer server;
+    private final boolean bulkSupported;
+
+    final AtomicInteger singleCalls = new AtomicInteger();
+    final AtomicInteger bulkCalls = new AtomicInteger();
+
+    StubLedgerServer(boolean bulkSupported) throws IOException {
+        this.bulkSupported = bulkSupported;
+        this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/v1/ledger/transfer", this::single);
+        server.createContext("/v1/ledger/transfers:batch", this::bulk);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.start();
+    }
+
+    String baseUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    private void single(HttpExchange exchange) throws IOException {
+        singleCalls.incrementAndGet();
+        LedgerTransferRequest req = mapper.readValue(exchange.getRequestBody(), LedgerTransferRequest.class);
+        respond(exchange, 200, new LedgerTransferResponse("SUCCESS", "posted " + req.transferId()));
+    }
+
+    private void bulk(HttpExchange exchange) throws IOException {
+        if (!bulkSupported) {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+            return;
+        }
+        bulkCalls.incrementAndGet();
+        LedgerBatchTransferRequest req = mapper.readValue(exchange.getRequestBody(), LedgerBatchTransferRequest.class);
+        respond(exchange, 200, new LedgerBatchTransferResponse(req.transfers().stream()
+                .map(t -> new LedgerBatchTransferResponse.Result(t.transferId(), "SUCCESS", "posted " + t.transferId(), null))
+                .toList()));
+    }
+
+    private void respond(HttpExchange exchange, int status, Object body) throws IOException {
+        byte[] bytes = mapper.writeValueAsBytes(body);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
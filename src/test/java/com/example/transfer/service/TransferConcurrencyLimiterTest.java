@@ -0,0 +1,66 @@
+package com.example.transfer.service;
+
+import com.example.transfer.exception.ServiceUnavailableException;
+import com.example.transfer.exception.TooManyRequestsException;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TransferConcurrencyLimiterTest {
+
+    @Test
+    void execute_shouldFailWith503_whenNoPermitFreesUpInTime() throws Exception {
+        TransferConcurrencyLimiter limiter = new TransferConcurrencyLimiter(1, 10, 50, 1);
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            executor.submit(() -> limiter.execute(() -> {
+                holding.countDown();
+                await(release);
+                return null;
+            }));
+            holding.await();
+
+            assertThrows(ServiceUnavailableException.class, () -> limiter.execute(() -> "late"));
+            release.countDown();
+        }
+        assertEquals("ok", limiter.execute(() -> "ok"));
+    }
+
+    @Test
+    void admit_shouldFailWith429_whenQueueIsFull() throws Exception {
+        TransferConcurrencyLimiter limiter = new TransferConcurrencyLimiter(1, 1, 5000, 1);
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            executor.submit(() -> limiter.execute(() -> {
+                holding.countDown();
+                await(release);
+                return null;
+            }));
+            holding.await();
+            executor.submit(() -> limiter.execute(() -> null));
+            while (limiter.queueDepth() < 1) {
+                Thread.onSpinWait();
+            }
+
+            assertThrows(TooManyRequestsException.class, limiter::admit);
+            release.countDown();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.transfer.service;
+
+import com.example.transfer.dto.TransferResponseDto;
+import com.example.transfer.entity.Transfer;
+import com.example.transfer.repository.TransferRepository;
+import com.example.transfer.repository.TransferStatusView;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TransferLookupServiceTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final TransferRepository transferRepository = mock(TransferRepository.class);
+    private final TransferStatusCache statusCache = new TransferStatusCache(100, 60);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final TransferLookupService lookupService = new TransferLookupService(
+            transferRepository, statusCache, objectMapper, transactionManager);
+
+    @Test
+    void write_shouldResolveCachedAndQueriedIds_andListMissingOnes() throws Exception {
+        String cached = Transfer.newId().toString();
+        UUID stored = Transfer.newId();
+        UUID unknown = Transfer.newId();
+        statusCache.putIfTerminal(new TransferResponseDto(cached, "COMPLETED"));
+        when(transferRepository.findStatusByIdIn(Set.of(stored, unknown)))
+                .thenReturn(List.of(new TransferStatusView(stored, Transfer.Status.PENDING)));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        lookupService.write(List.of(cached, stored.toString(), unknown.toString(), "not-a-uuid", stored.toString()), out);
+
+        JsonNode body = objectMapper.readTree(out.toByteArray());
+        assertEquals(2, body.get("transfers").size());
+        assertEquals(cached, body.get("transfers").get(0).get("transferId").asText());
+        assertEquals("PENDING", body.get("transfers").get(1).get("status").asText());
+        assertEquals(2, body.get("missing").size());
+        assertEquals(unknown.toString(), body.get("missing").get(0).asText());
+        assertEquals("not-a-uuid", body.get("missing").get(1).asText());
+    }
+
+    @Test
+    void write_shouldCommitTheReadBeforeWritingTheResponse() throws Exception {
+        UUID stored = Transfer.newId();
+        when(transferRepository.findStatusByIdIn(Set.of(stored)))
+                .thenReturn(List.of(new TransferStatusView(stored, Transfer.Status.COMPLETED)));
+        AtomicBoolean committed = new AtomicBoolean();
+        doAnswer(inv -> {
+            committed.set(true);
+            return null;
+        }).when(transactionManager).commit(any());
+        AtomicBoolean wroteInsideTransaction = new AtomicBoolean();
+        ByteArrayOutputStream out = new ByteArrayOutputStream() {
+            @Override
+            public void write(byte[] b, int off, int len) {
+                wroteInsideTransaction.compareAndSet(false, !committed.get());
+                super.write(b, off, len);
+            }
+        };
+
+        lookupService.write(List.of(stored.toString()), out);
+
+        assertTrue(committed.get());
+        assertFalse(wroteInsideTransaction.get());
+        assertEquals(stored.toString(), objectMapper.readTree(out.toByteArray()).get("transfers").get(0).get("transferId").asText());
+    }
+
+    @Test
+    void write_shouldResolveEverySpelling_ofTheSameId() throws Exception {
+        UUID stored = Transfer.newId();
+        String lower = stored.toString();
+        String upper = lower.toUpperCase();
+        when(transferRepository.findStatusByIdIn(Set.of(stored)))
+                .thenReturn(List.of(new TransferStatusView(stored, Transfer.Status.PENDING)));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        lookupService.write(List.of(lower, upper), out);
+
+        JsonNode body = objectMapper.readTree(out.toByteArray());
+        assertEquals(1, body.get("transfers").size());
+        assertEquals(0, body.get("missing").size());
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.transfer.service;
+
+import com.example.transfer.dto.LedgerTransferResponse;
+import com.example.transfer.dto.TransferRequestDto;
+import com.example.transfer.dto.TransferResponseDto;
+import com.example.transfer.entity.Transfer;
+import com.example.transfer.logging.StructuredEvents;
+import com.example.transfer.repository.TransferJdbcRepository;
+import com.example.transfer.repository.TransferOutboxRepository;
+import com.example.transfer.repository.TransferRepository;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.core.env.StandardEnvironment;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+        "app.transfer.async.enabled=true",
+        "app.transfer.async.poll-interval-ms=3600000",
+        "app.transfer.async.backoff-ms=0"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+class TransferOutboxDispatcherTest {
+
+    @Autowired
+    private TransferService transferService;
+
+    @Autowired
+    private TransferOutboxDispatcher dispatcher;
+
+    @Autowired
+    private TransferOutboxRepository outboxRepository;
+
+    @Autowired
+    private TransferRepository transferRepository;
+
+    @Autowired
+    private TransferJdbcRepository transferJdbcRepository;
+
+    @Autowired
+    private CircuitBreakerRegistry circuitBreakerRegistry;
+
+    @MockBean
+    private LedgerClient ledgerClient;
+
+    @Test
+    void createTransfer_shouldAcceptWithoutLedgerCall_thenDispatcherCompletesIt() {
+        Mockito.when(ledgerClient.postTransfer(Mockito.any()))
+                .thenReturn(Mono.just(new LedgerTransferResponse("SUCCESS", "OK")));
+        TransferRequestDto request = new TransferRequestDto(11L, 12L, BigDecimal.valueOf(25));
+
+        TransferResponseDto accepted = transferService.createTransfer(request, "async-happy");
+
+        assertEquals("PENDING", accepted.status());
+        assertTrue(outboxRepository.existsById(UUID.fromString(accepted.transferId())));
+        Mockito.verifyNoInteractions(ledgerClient);
+        // a retry before the ledger answered gets the same transfer back instead of waiting
+        assertEquals(accepted, transferService.createTransfer(request, "async-happy"));
+
+        dispatcher.drainOnce();
+
+        assertEquals("COMPLETED", transferService.getTransfer(accepted.transferId()).status());
+        assertFalse(outboxRepository.existsById(UUID.fromString(accepted.transferId())));
+        assertEquals(new TransferResponseDto(accepted.transferId(), Transfer.Status.COMPLETED.name()),
+                transferService.createTransfer(request, "async-happy"));
+    }
+
+    @Test
+    void drainOnce_shouldKeepRowForRetry_whenDispatchThrows() {
+        TransferRequestDto request = new TransferRequestDto(21L, 22L, BigDecimal.valueOf(5));
+        TransferResponseDto accepted = transferService.createTransfer(request, "async-retry");
+        UUID id = UUID.fromString(accepted.transferId());
+        Mockito.when(ledgerClient.postTransfer(Mockito.any()))
+                .thenReturn(Mono.just(new LedgerTransferResponse("SUCCESS", "OK")));
+        TransferService failing = Mockito.spy(transferService);
+        Mockito.doThrow(new IllegalStateException("db down")).when(failing).resumeQueued(Mockito.any());
+
+        new TransferOutboxDispatcher(outboxRepository, transferRepository, transferJdbcRepository, failing,
+                new SimpleMeterRegistry(), new StructuredEvents(new StandardEnvironment()), true, 100, 1, 30000, 0, 0).drainOnce();
+
+        assertEquals(1, outboxRepository.findById(id).orElseThrow().getAttempts());
+        assertEquals("PENDING", transferService.getTransfer(accepted.transferId()).status());
+
+        dispatcher.drainOnce();
+
+        assertEquals("COMPLETED", transferService.getTransfer(accepted.transferId()).status());
+        assertFalse(outboxRepository.existsById(id));
+    }
+
+    @Test
+    void recoverer_shouldLeaveTransfersWithOutboxRowsToTheDispatcher() {
+        TransferRequestDto request = new TransferRequestDto(31L, 32L, BigDecimal.valueOf(5));
+        UUID owned = UUID.fromString(transferService.createTransfer(request, "async-owned").transferId());
+        UUID orphaned = UUID.fromString(transferService.createTransfer(request, "async-orphaned").transferId());
+        transferJdbcRepository.deleteOutbox(List.of(orphaned));
+        TransferService recovering = Mockito.mock(TransferService.class);
+
+        // a negative timeout moves the cutoff into the future so both transfers are old enough
+        new PendingTransferRecoverer(transferRepository, recovering,
+                new StructuredEvents(new StandardEnvironment()), -60000, 100).recoverStuckTransfers();
+
+        Mockito.verify(recovering).resumePending(Mockito.argThat(t -> t.getId().equals(orphaned)));
+        Mockito.verify(recovering, Mockito.never()).resumePending(Mockito.argThat(t -> t.getId().equals(owned)));
+    }
+
+    @Test
+    void drain_shouldFinishLeftoverRows_afterAsyncIntakeIsTurnedOff() {
+        Mockito.when(ledgerClient.postTransfer(Mockito.any()))
+                .thenReturn(Mono.just(new LedgerTransferResponse("SUCCESS", "OK")));
+        TransferRequestDto request = new TransferRequestDto(41L, 42L, BigDecimal.valueOf(5));
+        UUID leftover = UUID.fromString(transferService.createTransfer(request, "async-leftover").transferId());
+
+        new TransferOutboxDispatcher(outboxRepository, transferRepository, transferJdbcRepository, transferService,
+                new SimpleMeterRegistry(), new StructuredEvents(new StandardEnvironment()), false, 100, 1, 30000, 0, 0).drain();
+
+        assertEquals("COMPLETED", transferService.getTransfer(leftover.toString()).status());
+        assertFalse(outboxRepository.existsById(leftover));
+    }
+
+    @Test
+    void drainOnce_shouldRescheduleNotFail_whenLedgerBreakerIsOpen() {
+        Mockito.when(ledgerClient.postTransfer(Mockito.any()))
+                .thenReturn(Mono.just(new LedgerTransferResponse("SUCCESS", "OK")));
+        TransferRequestDto request = new TransferRequestDto(51L, 52L, BigDecimal.valueOf(5));
+        UUID id = UUID.fromString(transferService.createTransfer(request, "async-breaker-open").transferId());
+        CircuitBreaker breaker = circuitBreakerRegistry.circuitBreaker("ledger");
+
+        breaker.transitionToOpenState();
+        try {
+            dispatcher.drainOnce();
+
+            assertEquals("PENDING", transferService.getTransfer(id.toString()).status());
+            assertEquals(1, outboxRepository.findById(id).orElseThrow().getAttempts());
+            Mockito.verifyNoInteractions(ledgerClient);
+        } finally {
+            breaker.reset();
+        }
+
+        dispatcher.drainOnce();
+
+        assertEquals("COMPLETED", transferService.getTransfer(id.toString()).status());
+        assertFalse(outboxRepository.existsById(id));
+    }
+}
@@ -16,6 +16,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import reactor.core.publisher.Mono;
 
 import java.math.BigDecimal;
 import java.util.concurrent.Callable;
@@ -61,7 +62,7 @@ class TransferServiceIntegrationTest {
     void testHappyPathTransfer() {
         // Ledger responds successfully
         Mockito.when(ledgerClient.postTransfer(Mockito.any()))
-                .thenReturn(new LedgerTransferResponse("SUCCESS", "Processed successfully"));
+                .thenReturn(Mono.just(new LedgerTransferResponse("SUCCESS", "Processed successfully")));
 
         TransferResponseDto resp = transferService.createTransfer(request1, "key1");
 
@@ -69,13 +70,13 @@ class TransferServiceIntegrationTest {
 
         // Idempotency stored
         assertTrue(idempotencyKeyRepository.findByKey("key1").isPresent());
-        assertEquals(resp.transferId(), transferRepository.findAll().getFirst().getId());
+        assertEquals(resp.transferId(), transferRepository.findAll().getFirst().getId().toString());
     }
 
     @Test
     void testConcurrentTransfersOnSameAccount() throws InterruptedException, ExecutionException {
         Mockito.when(ledgerClient.postTransfer(Mockito.any()))
-                .thenAnswer(invocation -> new LedgerTransferResponse("SUCCESS", "Processed"));
+                .thenAnswer(invocation -> Mono.just(new LedgerTransferResponse("SUCCESS", "Processed")));
 
         ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
 
@@ -101,7 +102,7 @@ class TransferServiceIntegrationTest {
     void testCircuitBreakerOpensAfterFailures() {
         // Mock ledger client to always fail
         Mockito.when(ledgerClient.postTransfer(Mockito.any()))
-                .thenThrow(new RuntimeException("Ledger unavailable"));
+                .thenReturn(Mono.error(new RuntimeException("Ledger unavailable")));
 
         CircuitBreaker cb = circuitBreakerRegistry.circuitBreaker("ledger");
 
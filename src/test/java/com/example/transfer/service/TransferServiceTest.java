@@ -6,26 +6,43 @@ import com.example.transfer.dto.TransferResponseDto;
 import com.example.transfer.entity.IdempotencyKey;
 import com.example.transfer.entity.Transfer;
 import com.example.transfer.exception.ConflictException;
+import com.example.transfer.exception.LedgerNotCalledException;
 import com.example.transfer.exception.NotFoundException;
+import com.example.transfer.exception.ServiceUnavailableException;
+import com.example.transfer.logging.StructuredEvents;
 import com.example.transfer.repository.IdempotencyKeyRepository;
+import com.example.transfer.repository.TransferJdbcRepository;
+import com.example.transfer.repository.TransferJdbcRepository.PendingTransfer;
 import com.example.transfer.repository.TransferRepository;
+import com.example.transfer.repository.TransferStatusView;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.math.BigDecimal;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.util.Base64;
+import java.util.Collection;
 import java.util.Optional;
+import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -37,36 +54,53 @@ class TransferServiceTest {
     @Mock
     private IdempotencyKeyRepository idempotencyKeyRepository;
 
+    @Mock
+    private TransferJdbcRepository transferJdbcRepository;
+
     @Mock
     private ResilientLedgerClient resilientLedgerClient;
 
     @Mock
     private ObjectMapper objectMapper;
 
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
     private TransferService transferService;
 
     @BeforeEach
     void setUp() {
-        transferService = new TransferService(
+        transferService = newService(new AccountLanes(new SimpleMeterRegistry(), true, 20, 5000));
+    }
+
+    private TransferService newService(AccountLanes accountLanes) {
+        return new TransferService(
                 transferRepository,
                 idempotencyKeyRepository,
+                transferJdbcRepository,
                 resilientLedgerClient,
                 objectMapper,
-                24 // ttlHours
+                new IdempotencyCache(100, 24),
+                new TransferStatusCache(100, 60),
+                accountLanes,
+                new AccountExposure(new SimpleMeterRegistry(), false, 100, 2000),
+                new TransferMetrics(new SimpleMeterRegistry()),
+                transactionManager,
+                new StructuredEvents(new StandardEnvironment()),
+                5000,
+                false
         );
     }
 
     @Test
     void getTransfer_shouldReturnDto_whenTransferExists() {
-        Transfer transfer = new Transfer();
-        transfer.setId("tx-1");
-        transfer.setStatus(Transfer.Status.COMPLETED);
+        UUID id = Transfer.newId();
+        when(transferRepository.findStatusById(id))
+                .thenReturn(Optional.of(new TransferStatusView(id, Transfer.Status.COMPLETED)));
 
-        when(transferRepository.findById("tx-1")).thenReturn(Optional.of(transfer));
+        TransferResponseDto response = transferService.getTransfer(id.toString());
 
-        TransferResponseDto response = transferService.getTransfer("tx-1");
-
-        assertEquals("tx-1", response.transferId());
+        assertEquals(id.toString(), response.transferId());
         assertEquals("COMPLETED", response.status());
 
 
@@ -77,11 +111,31 @@ class TransferServiceTest {
         verify(resilientLedgerClient, never()).postTransfer(any());
     }
 
+    @Test
+    void getTransfer_shouldServeTerminalTransfersFromCache_butRereadPending() {
+        UUID done = Transfer.newId();
+        UUID pending = Transfer.newId();
+        when(transferRepository.findStatusById(done))
+                .thenReturn(Optional.of(new TransferStatusView(done, Transfer.Status.FAILED)));
+        when(transferRepository.findStatusById(pending))
+                .thenReturn(Optional.of(new TransferStatusView(pending, Transfer.Status.PENDING)));
+
+        transferService.getTransfer(done.toString());
+        transferService.getTransfer(done.toString());
+        transferService.getTransfer(pending.toString());
+        transferService.getTransfer(pending.toString());
+
+        verify(transferRepository, times(1)).findStatusById(done);
+        verify(transferRepository, times(2)).findStatusById(pending);
+    }
+
     @Test
     void getTransfer_shouldThrowNotFound_whenTransferMissing() {
-        when(transferRepository.findById("missing")).thenReturn(Optional.empty());
+        UUID missing = Transfer.newId();
+        when(transferRepository.findStatusById(missing)).thenReturn(Optional.empty());
 
-        assertThrows(NotFoundException.class, () -> transferService.getTransfer("missing"));
+        assertThrows(NotFoundException.class, () -> transferService.getTransfer(missing.toString()));
+        assertThrows(NotFoundException.class, () -> transferService.getTransfer("not-a-uuid"));
     }
 
     @Test
@@ -108,6 +162,42 @@ class TransferServiceTest {
         verify(transferRepository, never()).save(any());
     }
 
+    @Test
+    void createTransfer_shouldReplayTypedResponseColumns_withoutJsonParse() throws Exception {
+        TransferRequestDto request = new TransferRequestDto(1L, 2L, BigDecimal.valueOf(100));
+        IdempotencyKey existingKey = new IdempotencyKey();
+        existingKey.setKey("idem-typed");
+        existingKey.setRequestHash(TransferService.hashRequest(request));
+        existingKey.setTransferId("tx-typed");
+        existingKey.setResponseVersion(IdempotencyKey.RESPONSE_TRANSFER_V1);
+        existingKey.setResponseStatus("FAILED");
+
+        when(idempotencyKeyRepository.findByKey("idem-typed")).thenReturn(Optional.of(existingKey));
+
+        TransferResponseDto response = transferService.createTransfer(request, "idem-typed");
+
+        assertEquals(new TransferResponseDto("tx-typed", "FAILED"), response);
+        verify(objectMapper, never()).readValue(any(String.class), eq(TransferResponseDto.class));
+    }
+
+    @Test
+    void createTransfer_shouldReplayFromCache_withoutDbLookupOrJsonParse() throws Exception {
+        TransferRequestDto request = new TransferRequestDto(1L, 2L, BigDecimal.valueOf(100));
+        String idempotencyKey = "idem-cached";
+
+        when(idempotencyKeyRepository.findByKey(idempotencyKey)).thenReturn(Optional.empty());
+        when(transferJdbcRepository.finalizePending(any(), any(), any())).thenReturn(1);
+        when(resilientLedgerClient.postTransfer(any()))
+                .thenReturn(CompletableFuture.completedFuture(new LedgerTransferResponse("SUCCESS", "OK")));
+        TransferResponseDto first = transferService.createTransfer(request, idempotencyKey);
+        TransferResponseDto replay = transferService.createTransfer(request, idempotencyKey);
+
+        assertEquals(first, replay);
+        verify(idempotencyKeyRepository, times(1)).findByKey(idempotencyKey);
+        verify(objectMapper, never()).readValue(any(String.class), eq(TransferResponseDto.class));
+        verify(resilientLedgerClient, times(1)).postTransfer(any());
+    }
+
     @Test
     void createTransfer_shouldThrowConflict_whenIdempotencyKeyExistsWithDifferentHash() {
         TransferRequestDto request = new TransferRequestDto(1L, 2L, BigDecimal.valueOf(100));
@@ -121,31 +211,134 @@ class TransferServiceTest {
     }
 
     @Test
-    void createTransfer_shouldCreateAndPersistTransfer_whenNoIdempotencyKeyExists() throws Exception {
+    void createTransfer_shouldReservePendingThenFinalize_whenNoIdempotencyKeyExists() throws Exception {
         TransferRequestDto request = new TransferRequestDto(1L, 2L, BigDecimal.valueOf(100));
         String idempotencyKey = "idem-456";
 
         when(idempotencyKeyRepository.findByKey(idempotencyKey)).thenReturn(Optional.empty());
-        when(idempotencyKeyRepository.saveAndFlush(any())).thenAnswer(inv -> inv.getArgument(0));
-
-        Transfer savedTransfer = new Transfer();
-        savedTransfer.setId("tx-999");
-        savedTransfer.setFromAccountId(1L);
-        savedTransfer.setToAccountId(2L);
-        savedTransfer.setAmount(BigDecimal.valueOf(100));
-        when(transferRepository.saveAndFlush(any())).thenReturn(savedTransfer);
+        when(transferJdbcRepository.finalizePending(any(), eq(Transfer.Status.COMPLETED), eq("OK"))).thenReturn(1);
 
         LedgerTransferResponse ledgerResponse = new LedgerTransferResponse("SUCCESS", "OK");
         when(resilientLedgerClient.postTransfer(any())).thenReturn(CompletableFuture.completedFuture(ledgerResponse));
-        when(transferRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
-
-        when(objectMapper.writeValueAsString(any())).thenReturn("{\"id\":\"tx-999\",\"status\":\"COMPLETED\"}");
 
         TransferResponseDto response = transferService.createTransfer(request, idempotencyKey);
 
-        assertEquals("tx-999", response.transferId());
+        ArgumentCaptor<Collection<PendingTransfer>> reserved = ArgumentCaptor.forClass(Collection.class);
+        verify(transferJdbcRepository).insertTransfers(reserved.capture());
+        PendingTransfer pending = reserved.getValue().iterator().next();
+        assertEquals(idempotencyKey, pending.idempotencyKey());
+
+        assertEquals(pending.transferId(), response.transferId());
         assertEquals("COMPLETED", response.status());
-        verify(idempotencyKeyRepository).save(any());
-        verify(transferRepository).save(any());
+        verify(transferJdbcRepository).completeIdempotencyKey(response.transferId(), Transfer.Status.COMPLETED);
+    }
+
+    @Test
+    void createTransfer_shouldReleaseReservation_whenLedgerRefusesBeforeAnyCall_soARetryStartsOver() {
+        TransferRequestDto request = new TransferRequestDto(1L, 2L, BigDecimal.valueOf(100));
+        String idempotencyKey = "idem-refused";
+
+        when(idempotencyKeyRepository.findByKey(idempotencyKey)).thenReturn(Optional.empty());
+        when(transferJdbcRepository.finalizePending(any(), eq(Transfer.Status.COMPLETED), eq("OK"))).thenReturn(1);
+        when(resilientLedgerClient.postTransfer(any()))
+                .thenReturn(CompletableFuture.failedFuture(new LedgerNotCalledException("Ledger concurrency limit reached, retry later")))
+                .thenReturn(CompletableFuture.completedFuture(new LedgerTransferResponse("SUCCESS", "OK")));
+
+        assertThrows(LedgerNotCalledException.class, () -> transferService.createTransfer(request, idempotencyKey));
+
+        ArgumentCaptor<Collection<PendingTransfer>> reserved = ArgumentCaptor.forClass(Collection.class);
+        verify(transferJdbcRepository).insertTransfers(reserved.capture());
+        String refusedId = reserved.getValue().iterator().next().transferId();
+        verify(transferJdbcRepository).deleteOpenIdempotencyKey(refusedId);
+        verify(transferJdbcRepository).deletePendingTransfer(refusedId);
+
+        TransferResponseDto retried = transferService.createTransfer(request, idempotencyKey);
+
+        assertEquals("COMPLETED", retried.status());
+        assertNotEquals(refusedId, retried.transferId());
+    }
+
+    @Test
+    void createTransfer_shouldAcceptAsPending_whenRefusedAfterTheLedgerMayHaveSeenIt() {
+        TransferRequestDto request = new TransferRequestDto(1L, 2L, BigDecimal.valueOf(100));
+
+        when(idempotencyKeyRepository.findByKey("idem-maybe-sent")).thenReturn(Optional.empty());
+        when(resilientLedgerClient.postTransfer(any()))
+                .thenReturn(CompletableFuture.failedFuture(new ServiceUnavailableException("Ledger concurrency limit reached, retry later")));
+
+        TransferResponseDto response = transferService.createTransfer(request, "idem-maybe-sent");
+
+        assertEquals("PENDING", response.status());
+        verify(transferJdbcRepository, never()).deleteOpenIdempotencyKey(any());
+        verify(transferJdbcRepository, never()).deletePendingTransfer(any());
+    }
+
+    @Test
+    void createTransfer_shouldWriteNothing_whenLaneWaitTimesOut_soARetrySucceeds() throws Exception {
+        TransferService service = newService(new AccountLanes(new SimpleMeterRegistry(), true, 20, 50));
+        TransferRequestDto request = new TransferRequestDto(1L, 2L, BigDecimal.valueOf(100));
+        CompletableFuture<LedgerTransferResponse> slowLedger = new CompletableFuture<>();
+
+        when(idempotencyKeyRepository.findByKey(any())).thenReturn(Optional.empty());
+        when(transferJdbcRepository.finalizePending(any(), any(), any())).thenReturn(1);
+        when(resilientLedgerClient.postTransfer(any()))
+                .thenReturn(slowLedger)
+                .thenReturn(CompletableFuture.completedFuture(new LedgerTransferResponse("SUCCESS", "OK")));
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<TransferResponseDto> first = executor.submit(() -> service.createTransfer(request, "idem-lane-first"));
+            verify(resilientLedgerClient, timeout(2000)).postTransfer(any());
+
+            assertThrows(ServiceUnavailableException.class, () -> service.createTransfer(request, "idem-lane-second"));
+            // only the first transfer was reserved; the refused one left no marker to wait on
+            verify(transferJdbcRepository, times(1)).insertIdempotencyKeys(any());
+
+            slowLedger.complete(new LedgerTransferResponse("SUCCESS", "OK"));
+            assertEquals("COMPLETED", first.get().status());
+        }
+
+        assertEquals("COMPLETED", service.createTransfer(request, "idem-lane-second").status());
+        verify(transferJdbcRepository, times(2)).insertIdempotencyKeys(any());
+    }
+
+    @Test
+    void resumePending_shouldKeepExistingOutcome_whenTransferAlreadyFinalized() throws Exception {
+        Transfer pending = new Transfer();
+        pending.setId(Transfer.newId());
+        pending.setFromAccountId(1L);
+        pending.setToAccountId(2L);
+        pending.setAmount(BigDecimal.TEN);
+        pending.setStatus(Transfer.Status.PENDING);
+
+        when(resilientLedgerClient.postTransfer(any()))
+                .thenReturn(CompletableFuture.completedFuture(new LedgerTransferResponse("SUCCESS", "OK")));
+        when(transferRepository.findStatusById(pending.getId()))
+                .thenReturn(Optional.of(new TransferStatusView(pending.getId(), Transfer.Status.FAILED)));
+
+        TransferResponseDto response = transferService.resumePending(pending);
+
+        assertEquals("FAILED", response.status());
+    }
+
+    @Test
+    void createTransfer_shouldCoalesceConcurrentRequestsWithSameIdempotencyKey() throws Exception {
+        TransferRequestDto request = new TransferRequestDto(1L, 2L, BigDecimal.valueOf(100));
+        String idempotencyKey = "idem-single-flight";
+        CompletableFuture<LedgerTransferResponse> ledgerResult = new CompletableFuture<>();
+
+        when(idempotencyKeyRepository.findByKey(idempotencyKey)).thenReturn(Optional.empty());
+        when(transferJdbcRepository.finalizePending(any(), any(), any())).thenReturn(1);
+        when(resilientLedgerClient.postTransfer(any())).thenReturn(ledgerResult);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<TransferResponseDto> leader = executor.submit(() -> transferService.createTransfer(request, idempotencyKey));
+            verify(resilientLedgerClient, timeout(2000)).postTransfer(any());
+
+            Future<TransferResponseDto> follower = executor.submit(() -> transferService.createTransfer(request, idempotencyKey));
+            Thread.sleep(50);
+            ledgerResult.complete(new LedgerTransferResponse("SUCCESS", "OK"));
+
+            assertEquals(leader.get(), follower.get());
+        }
+        verify(resilientLedgerClient, times(1)).postTransfer(any());
+        verify(transferJdbcRepository, times(1)).insertIdempotencyKeys(any());
     }
 }